@@ -1,5 +1,9 @@
 package com.github.buzluk.d2anki;
 
+import com.github.buzluk.d2anki.cache.AliasMap;
+import com.github.buzluk.d2anki.cache.HtmlCache;
+import com.github.buzluk.d2anki.cache.ValidatorStore;
+import com.github.buzluk.d2anki.cache.WordStore;
 import com.github.buzluk.d2anki.client.AsyncHttpClient;
 import com.github.buzluk.d2anki.config.AppConfig;
 import com.github.buzluk.d2anki.exporter.TsvExporter;
@@ -11,37 +15,63 @@ import com.github.buzluk.d2anki.service.WordFetcher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RequiredArgsConstructor
-public class D2AnkiApplication {
+public class D2AnkiApplication implements AutoCloseable {
 
     private final WordFetcher wordFetcher;
     private final WordExporter wordExporter;
     private final AudioDownloader audioDownloader;
     private final FailureReporter failureReporter;
     private final AsyncHttpClient client;
+    private final WordStore wordStore;
+    private final List<URI> warmUpUris;
 
     public static D2AnkiApplication create(AppConfig config) {
-        AsyncHttpClient client = new AsyncHttpClient();
+        AsyncHttpClient client = new AsyncHttpClient(config.clientConfig());
 
-        WordFetcher wordFetcher = new WordFetcher(client);
+        HtmlCache htmlCache = config.htmlCacheDir() == AppConfig.NO_HTML_CACHE
+                ? null
+                : new HtmlCache(config.htmlCacheDir(), config.htmlCacheTtl());
+
+        // A stored word is as old as the page it was parsed from, so both expire together.
+        WordStore wordStore = config.wordStoreFile() == AppConfig.NO_WORD_STORE
+                ? null
+                : new WordStore(config.wordStoreFile(), config.htmlCacheTtl());
+
+        AliasMap aliasMap = config.aliasFile() == AppConfig.NO_ALIASES ? null : new AliasMap(config.aliasFile());
+
+        WordFetcher wordFetcher = new WordFetcher(client, config.streamingParse(), config.maxHomographs(), htmlCache,
+                wordStore, aliasMap);
         WordExporter wordExporter = new TsvExporter(config.outputFilePath());
-        AudioDownloader audioDownloader = new AudioDownloader(client, config.mediaOutputDir());
-        FailureReporter failureReporter = new FailureReporter(config.failedLogFilePath());
+        ValidatorStore audioValidators = config.audioValidatorsFile() == AppConfig.NO_AUDIO_VALIDATORS
+                ? null
+                : new ValidatorStore(config.audioValidatorsFile());
+        AudioDownloader audioDownloader = new AudioDownloader(client, config.mediaOutputDir(), audioValidators);
+        FailureReporter failureReporter = new FailureReporter(config.failedLogFilePath(),
+                config.suggestionsFilePath());
 
-        return new D2AnkiApplication(wordFetcher, wordExporter, audioDownloader, failureReporter, client);
+        return new D2AnkiApplication(wordFetcher, wordExporter, audioDownloader, failureReporter, client,
+                wordStore, config.warmUpUris());
     }
 
     public void run(Path inputFilePath) {
         long start = System.currentTimeMillis();
 
+        // Connections are opened while the input file is read; the first requests reuse them.
+        client.warmUp(warmUpUris);
+
         Collection<Word> fetchedWords = wordFetcher.fetchFromFile(inputFilePath);
 
         failureReporter.reportFailures(client.getFailedRequests());
+        failureReporter.reportMisses(wordFetcher.getMisses());
 
         if (fetchedWords.isEmpty()) {
             log.warn("No words fetched. Terminating program.");
@@ -57,5 +87,37 @@ public class D2AnkiApplication {
         long duration = System.currentTimeMillis() - start;
         log.info("All operations completed in {} ms.", duration);
     }
+
+    /**
+     * Rebuilds the export from cached pages only. No requests are sent and no audio is downloaded, so this is
+     * the quick path after a parser or card layout change.
+     */
+    public void reparse(Path inputFilePath) {
+        long start = System.currentTimeMillis();
+
+        Collection<Word> parsedWords = wordFetcher.reparseFromFile(inputFilePath);
+        failureReporter.reportMisses(wordFetcher.getMisses());
+        if (parsedWords.isEmpty()) {
+            log.warn("No words found in cache. Terminating program.");
+            return;
+        }
+        wordExporter.export(parsedWords);
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("Reparse completed in {} ms.", duration);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        if (wordStore == null) {
+            return;
+        }
+        try {
+            wordStore.close();
+        } catch (IOException e) {
+            log.warn("Failed to close word store: {}", e.getMessage());
+        }
+    }
 }
 
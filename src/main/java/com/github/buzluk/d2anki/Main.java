@@ -8,23 +8,33 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 
 @Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class Main {
 
+    private static final String REPARSE_FLAG = "--reparse";
+
     public static void main(String[] args) {
         AppConfig config = AppConfig.defaults();
-        Path inputFilePath = resolveInputFile(args, config.defaultInputFile());
+        List<String> arguments = args == null ? List.of() : Arrays.asList(args);
+        boolean reparse = arguments.contains(REPARSE_FLAG);
+        Path inputFilePath = resolveInputFile(
+                arguments.stream().filter(arg -> !arg.equals(REPARSE_FLAG)).toList(),
+                config.defaultInputFile());
 
         if (!validateInputFile(inputFilePath)) {
             System.exit(1);
         }
 
-        try {
-            D2AnkiApplication application = D2AnkiApplication.create(config);
-            application.run(inputFilePath);
-            System.exit(0);
+        try (D2AnkiApplication application = D2AnkiApplication.create(config)) {
+            if (reparse) {
+                application.reparse(inputFilePath);
+            } else {
+                application.run(inputFilePath);
+            }
         } catch (WordFetchException e) {
             log.error("Failed to fetch word definitions: {}", e.getMessage());
             System.exit(1);
@@ -34,9 +44,9 @@ public class Main {
         }
     }
 
-    private static Path resolveInputFile(String[] args, String defaultInputFile) {
-        if (args != null && args.length > 0) {
-            String path = args[0];
+    private static Path resolveInputFile(List<String> args, String defaultInputFile) {
+        if (!args.isEmpty()) {
+            String path = args.getFirst();
             log.info("User argument detected. Processing file: {}", path);
             return Path.of(path);
         } else {
@@ -2,10 +2,14 @@ package com.github.buzluk.d2anki.anki;
 
 import com.github.buzluk.d2anki.anki.render.CardBackRenderer;
 import com.github.buzluk.d2anki.anki.render.CardFrontRenderer;
+import com.github.buzluk.d2anki.anki.render.StreamingCardRenderer;
 import com.github.buzluk.d2anki.model.Word;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class AnkiCard {
     private final Word word;
@@ -31,7 +35,23 @@ public class AnkiCard {
     }
 
     public String printAsTsvFormat() {
-        return getFrontAsHtml() + "\t" + getBackAsHtml() + "\t" + getTag();
+        StringBuilder line = new StringBuilder();
+        try {
+            appendTsvTo(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Writes the same line as {@link #printAsTsvFormat()}, without the trailing newline, straight into {@code out}.
+     */
+    public void appendTsvTo(Appendable out) throws IOException {
+        StreamingCardRenderer.renderFront(word, out);
+        out.append('\t');
+        StreamingCardRenderer.renderBack(word, out);
+        out.append('\t').append(getTag());
     }
 
 }
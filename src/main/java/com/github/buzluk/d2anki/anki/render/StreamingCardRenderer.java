@@ -0,0 +1,169 @@
+package com.github.buzluk.d2anki.anki.render;
+
+import com.github.buzluk.d2anki.model.Accent;
+import com.github.buzluk.d2anki.model.Meaning;
+import com.github.buzluk.d2anki.model.Pronunciation;
+import com.github.buzluk.d2anki.model.Word;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes the same markup as {@link CardFrontRenderer} and {@link CardBackRenderer}, character for character, without
+ * building a jsoup document. A card is assembled in a per-thread buffer and handed to the target in one piece, so
+ * rendering a whole deck allocates little beyond the output itself.
+ * <p>
+ * Text is escaped the way jsoup does it for a UTF-8 document: {@code & < >} and the no-break space become named
+ * entities, and control characters and anything jsoup takes for a surrogate become hexadecimal references.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class StreamingCardRenderer {
+
+    private static final String HEAD = "<html><head><meta charset=\"UTF-8\"><meta charset=\"UTF-8\"></head><body>";
+    private static final String TAIL = "</body></html>";
+
+    private static final String FRONT_STYLE = "<style>" +
+            ".name { font-size: 50px; }" +
+            ".category { font-size: 25px; font-style: italic;}" +
+            ".pron-container { display: flex; align-items: center; }" +
+            ".left-text { margin-right: 10px;}" +
+            ".phon-div { margin-left: 10px; padding: 4px; border: 1px solid #ccc; }" +
+            ".phon-text { margin-right: 5px;  }" +
+            "</style>";
+    private static final String BACK_STYLE = "<style>" +
+            ".definition-list { font-size: 18px; }" +
+            ".example-list { font-size: 15px; }" +
+            "</style>";
+
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+    private static final int RETAINED_CAPACITY = 256 * 1024;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private static final class Scratch {
+        private StringBuilder text = new StringBuilder(INITIAL_CAPACITY);
+        private final char[] chunk = new char[INITIAL_CAPACITY];
+    }
+
+    public static void renderFront(Word word, Appendable out) throws IOException {
+        requireNonNull(word, "word must not be null");
+        Scratch scratch = SCRATCH.get();
+        StringBuilder html = scratch.text;
+        try {
+            html.append(HEAD).append(FRONT_STYLE);
+            html.append("<div><span class=\"name\"><b>");
+            escape(word.name() == null ? "" : word.name(), html);
+            html.append("</b></span></div>");
+            // The jsoup renderer appends only the innermost element of the category chain, so neither the div
+            // nor the span carrying the category class make it into the card.
+            html.append("<i>");
+            escape(word.category() == null ? "" : word.category(), html);
+            html.append("</i><br><br>");
+            appendPronunciations(word.pronunciations(), Accent.US, html);
+            html.append("<br>");
+            appendPronunciations(word.pronunciations(), Accent.UK, html);
+            html.append(TAIL);
+            flush(scratch, out);
+        } finally {
+            release(scratch);
+        }
+    }
+
+    public static void renderBack(Word word, Appendable out) throws IOException {
+        requireNonNull(word, "word must not be null");
+        Scratch scratch = SCRATCH.get();
+        StringBuilder html = scratch.text;
+        try {
+            html.append(HEAD).append(BACK_STYLE);
+            html.append("<ol class=\"definition-list\">");
+            for (Meaning meaning : word.meanings()) {
+                appendListItem(requireNonNull(meaning.definition(), "definition must not be null"), html);
+                List<String> examples = meaning.examples();
+                if (examples == null) continue;
+                // Like the jsoup renderer, the examples follow their definition inside the ordered list rather
+                // than being nested in its item.
+                html.append("<ul class=\"example-list\">");
+                for (String example : examples) {
+                    appendListItem(requireNonNull(example, "example must not be null"), html);
+                }
+                html.append("</ul>");
+            }
+            html.append("</ol>").append(TAIL);
+            flush(scratch, out);
+        } finally {
+            release(scratch);
+        }
+    }
+
+    private static void appendPronunciations(List<Pronunciation> pronunciations, Accent accent, StringBuilder html) {
+        html.append("<div class=\"pron-container\"><span class=\"left-text\">").append(accent.name()).append("</span>");
+        for (Pronunciation pronunciation : pronunciations) {
+            if (pronunciation.accent() != accent) continue;
+            html.append("<div class=\"phon-div\"><span>");
+            escape("[sound:%s]".formatted(pronunciation.soundFileName()), html);
+            html.append("</span><span class=\"phon-text\">");
+            escape(" %s ".formatted(pronunciation.phonetic()), html);
+            html.append("</span></div>");
+        }
+        html.append("</div>");
+    }
+
+    private static void appendListItem(String text, StringBuilder html) {
+        html.append("<li>");
+        escape(text, html);
+        html.append("</li>");
+    }
+
+    static void escape(String text, StringBuilder html) {
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            switch (codePoint) {
+                case '&' -> html.append("&amp;");
+                case '<' -> html.append("&lt;");
+                case '>' -> html.append("&gt;");
+                case '\u00A0' -> html.append("&nbsp;");
+                case '\t', '\n', '\r' -> html.append((char) codePoint);
+                default -> {
+                    // jsoup tests the low 16 bits of the code point, so it also writes supplementary characters
+                    // such as U+1D800 as references; matching that keeps the output identical.
+                    if (codePoint < 0x20 || Character.isSurrogate((char) codePoint)) {
+                        html.append("&#x").append(Integer.toHexString(codePoint)).append(';');
+                    } else {
+                        html.appendCodePoint(codePoint);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A {@link Writer} would copy the whole buffer into a new string on {@code append}, so it gets the buffer in
+     * chunks through the per-thread array instead.
+     */
+    private static void flush(Scratch scratch, Appendable out) throws IOException {
+        StringBuilder html = scratch.text;
+        if (!(out instanceof Writer writer)) {
+            out.append(html);
+            return;
+        }
+        char[] chunk = scratch.chunk;
+        for (int start = 0; start < html.length(); start += chunk.length) {
+            int end = Math.min(start + chunk.length, html.length());
+            html.getChars(start, end, chunk, 0);
+            writer.write(chunk, 0, end - start);
+        }
+    }
+
+    private static void release(Scratch scratch) {
+        if (scratch.text.capacity() > RETAINED_CAPACITY) {
+            scratch.text = new StringBuilder(INITIAL_CAPACITY);
+        } else {
+            scratch.text.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.buzluk.d2anki.cache;
+
+import com.github.buzluk.d2anki.exception.CacheException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers where the dictionary redirected a URL, e.g. from an inflected form to its canonical entry, so inputs
+ * that end up on the same entry can be recognised before they are fetched. Stored as {@code requested \t resolved}
+ * lines.
+ */
+@Slf4j
+public class AliasMap {
+
+    private static final TsvIndex.Codec<URI, URI> CODEC = new TsvIndex.Codec<>() {
+        @Override
+        public Map.Entry<URI, URI> decode(String[] fields) {
+            if (fields.length != 2) {
+                throw new IllegalArgumentException("Expected 2 fields, got " + fields.length);
+            }
+            return Map.entry(URI.create(fields[0]), URI.create(fields[1]));
+        }
+
+        @Override
+        public List<String> encode(URI requested, URI resolved) {
+            return List.of(requested.toString(), resolved.toString());
+        }
+    };
+
+    private final TsvIndex<URI, URI> aliases;
+
+    public AliasMap(Path file) {
+        try {
+            this.aliases = new TsvIndex<>(file, "alias", CODEC);
+        } catch (IOException e) {
+            throw new CacheException("Failed to load aliases from: " + file, e);
+        }
+    }
+
+    /**
+     * The URL the request ended up at last time, or the URL itself if it was not redirected.
+     */
+    public URI resolve(URI requested) {
+        return aliases.get(requested).orElse(requested);
+    }
+
+    public int size() {
+        return aliases.size();
+    }
+
+    /**
+     * Remembers a redirect. An alias that cannot be written only means the two inputs are fetched separately
+     * next time, so the error is logged and the run goes on.
+     */
+    public void record(URI requested, URI resolved) {
+        if (requested.equals(resolved) || aliases.get(requested).filter(resolved::equals).isPresent()) {
+            return;
+        }
+        try {
+            aliases.put(requested, resolved);
+        } catch (IOException e) {
+            log.warn("Could not store alias '{}' -> '{}': {}", requested, resolved, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.buzluk.d2anki.cache;
+
+import com.github.buzluk.d2anki.client.request.Validators;
+
+import java.net.URI;
+import java.time.Instant;
+
+/**
+ * @param url        the address the page was requested from
+ * @param hash       SHA-256 of the page content, which names its object file, or {@code null} if the server answered
+ *                   that there is no page at the URL
+ * @param fetchedAt  when the page was last received from, or confirmed current by, the server
+ * @param validators what the server sent to revalidate the page with
+ */
+public record CacheEntry(URI url, String hash, Instant fetchedAt, Validators validators) {
+
+    static CacheEntry absent(URI url, Instant now) {
+        return new CacheEntry(url, null, now, Validators.NONE);
+    }
+
+    public boolean isAbsent() {
+        return hash == null;
+    }
+
+    CacheEntry refreshedAt(Instant now) {
+        return new CacheEntry(url, hash, now, validators);
+    }
+}
@@ -0,0 +1,236 @@
+package com.github.buzluk.d2anki.cache;
+
+import com.github.buzluk.d2anki.client.request.PageSink;
+import com.github.buzluk.d2anki.client.request.Validators;
+import com.github.buzluk.d2anki.exception.CacheException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A local store of raw dictionary pages. Page contents are gzip-compressed and stored once under their SHA-256,
+ * so pages that several URLs resolve to share one file. An index maps each URL to the hash of its latest
+ * content, the time it was fetched and the validators to revalidate it with once it is stale. A URL the server
+ * answered with {@code 404} is indexed with an empty hash, so it is not requested again until that answer is stale.
+ * <pre>
+ * root/index.tsv              url \t hash \t fetchedAtMillis \t etag \t lastModified
+ * root/objects/ab/abcdef….gz  gzip-compressed page
+ * </pre>
+ */
+@Slf4j
+public class HtmlCache implements PageSink {
+    private static final String INDEX_FILE = "index.tsv";
+    private static final String OBJECTS_DIR = "objects";
+
+    private static final TsvIndex.Codec<URI, CacheEntry> CODEC = new TsvIndex.Codec<>() {
+        @Override
+        public Map.Entry<URI, CacheEntry> decode(String[] fields) {
+            if (fields.length != 3 && fields.length != 5) {
+                throw new IllegalArgumentException("Expected 3 or 5 fields, got " + fields.length);
+            }
+            URI url = URI.create(fields[0]);
+            Validators validators = fields.length == 5
+                    ? new Validators(emptyToNull(fields[3]), emptyToNull(fields[4]))
+                    : Validators.NONE;
+            return Map.entry(url, new CacheEntry(url, emptyToNull(fields[1]), Instant.ofEpochMilli(Long.parseLong(fields[2])),
+                    validators));
+        }
+
+        @Override
+        public List<String> encode(URI url, CacheEntry entry) {
+            Validators validators = entry.validators();
+            return List.of(url.toString(), Objects.toString(entry.hash(), ""), Long.toString(entry.fetchedAt().toEpochMilli()),
+                    Objects.toString(validators.etag(), ""), Objects.toString(validators.lastModified(), ""));
+        }
+    };
+
+    private final Path root;
+    private final Duration ttl;
+    private final Clock clock;
+    private final TsvIndex<URI, CacheEntry> index;
+
+    public HtmlCache(Path root, Duration ttl) {
+        this(root, ttl, Clock.systemUTC());
+    }
+
+    HtmlCache(Path root, Duration ttl, Clock clock) {
+        this.root = root;
+        this.ttl = ttl;
+        this.clock = clock;
+        try {
+            Files.createDirectories(root.resolve(OBJECTS_DIR));
+            this.index = new TsvIndex<>(root.resolve(INDEX_FILE), "cache index", CODEC);
+        } catch (IOException e) {
+            throw new CacheException("Failed to open HTML cache at: " + root, e);
+        }
+        log.info("HTML cache opened at '{}' with {} entries. TTL: {}", root.toAbsolutePath(), index.size(), ttl);
+    }
+
+    /**
+     * The cached page for the URL, if it was fetched within the TTL.
+     */
+    public Optional<String> get(URI url) {
+        return index.get(url).filter(this::isWithinTtl).flatMap(this::read);
+    }
+
+    /**
+     * Whether a page for the URL was fetched within the TTL, without reading it.
+     */
+    public boolean isFresh(URI url) {
+        return index.get(url).filter(this::isWithinTtl).filter(entry -> !entry.isAbsent()).isPresent();
+    }
+
+    /**
+     * Whether the server answered within the TTL that there is no page at the URL.
+     */
+    public boolean isKnownMissing(URI url) {
+        return index.get(url).filter(this::isWithinTtl).filter(CacheEntry::isAbsent).isPresent();
+    }
+
+    private boolean isWithinTtl(CacheEntry entry) {
+        return !entry.fetchedAt().plus(ttl).isBefore(clock.instant());
+    }
+
+    /**
+     * The cached page for the URL regardless of its age, for rebuilding words without the network.
+     */
+    public Optional<String> getIgnoringTtl(URI url) {
+        return index.get(url).flatMap(this::read);
+    }
+
+    public Optional<CacheEntry> entry(URI url) {
+        return index.get(url);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Stores the page without validators, so once it is stale it is fetched in full.
+     */
+    public void put(URI url, String html) {
+        fetched(url, html, Validators.NONE);
+    }
+
+    /**
+     * Stores the page and points the URL at it. The page has been fetched either way, so a write error only costs
+     * the cached copy and is logged.
+     */
+    @Override
+    public void fetched(URI url, String html, Validators validators) {
+        byte[] content = html.getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(content);
+        CacheEntry entry = new CacheEntry(url, hash, clock.instant(), validators);
+        try {
+            writeObject(hash, content);
+            index.put(url, entry);
+        } catch (IOException e) {
+            log.warn("Could not cache page for '{}': {}", url, e.getMessage());
+        }
+    }
+
+    /**
+     * Marks the cached page as fresh again and returns it. If the new fetch time cannot be written, the page is only
+     * revalidated again sooner than necessary.
+     */
+    @Override
+    public Optional<String> notModified(URI url) {
+        Optional<CacheEntry> cached = index.get(url);
+        if (cached.isEmpty()) {
+            return Optional.empty();
+        }
+        CacheEntry entry = cached.get();
+        try {
+            index.put(url, entry.refreshedAt(clock.instant()));
+        } catch (IOException e) {
+            log.warn("Could not refresh cached page for '{}': {}", url, e.getMessage());
+        }
+        return read(entry);
+    }
+
+    /**
+     * Remembers that there is no page at the URL. Failing to write that down only means asking again next run.
+     */
+    @Override
+    public void notFound(URI url) {
+        try {
+            index.put(url, CacheEntry.absent(url, clock.instant()));
+        } catch (IOException e) {
+            log.warn("Could not record missing page for '{}': {}", url, e.getMessage());
+        }
+    }
+
+    private Optional<String> read(CacheEntry entry) {
+        if (entry.isAbsent()) {
+            return Optional.empty();
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(objectPath(entry.hash())))) {
+            return Optional.of(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.warn("Could not read cached page for '{}': {}", entry.url(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void writeObject(String hash, byte[] content) throws IOException {
+        Path target = objectPath(hash);
+        if (Files.exists(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                out.write(content);
+            }
+            moveIntoPlace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException _) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private Path objectPath(String hash) {
+        return root.resolve(OBJECTS_DIR).resolve(hash.substring(0, 2)).resolve(hash + ".gz");
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.buzluk.d2anki.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A map kept in memory and mirrored to an append-only file of tab-separated lines, one line per update. The last
+ * line for a key wins when the file is loaded. Lines that were replaced later, or could not be read, are dropped
+ * by rewriting the file on load once they make up half of it, so the file stays within about twice the size of
+ * its live records however often they are updated.
+ */
+@Slf4j
+final class TsvIndex<K, V> {
+
+    /**
+     * Turns a line into a record and back. Fields must not contain tabs or line breaks.
+     */
+    interface Codec<K, V> {
+        /**
+         * @throws IllegalArgumentException if the fields do not form a record
+         */
+        Map.Entry<K, V> decode(String[] fields);
+
+        List<String> encode(K key, V value);
+    }
+
+    private final Path file;
+    private final String name;
+    private final Codec<K, V> codec;
+    private final Map<K, V> records = new ConcurrentHashMap<>();
+    private final ReentrantLock fileLock = new ReentrantLock();
+
+    /**
+     * @param name what the file holds, for log messages, e.g. {@code "alias"}
+     */
+    TsvIndex(Path file, String name, Codec<K, V> codec) throws IOException {
+        this.file = file;
+        this.name = name;
+        this.codec = codec;
+        load();
+    }
+
+    Optional<V> get(K key) {
+        return Optional.ofNullable(records.get(key));
+    }
+
+    int size() {
+        return records.size();
+    }
+
+    /**
+     * Appends the record to the file, and only then makes it visible, so what is in memory is always on disk.
+     */
+    void put(K key, V value) throws IOException {
+        String line = String.join("\t", codec.encode(key, value)) + "\n";
+        fileLock.lock();
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.writeString(file, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            records.put(key, value);
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            try {
+                Map.Entry<K, V> record = codec.decode(line.split("\t", -1));
+                records.put(record.getKey(), record.getValue());
+            } catch (IllegalArgumentException _) {
+                log.warn("Skipping malformed {} line in '{}': '{}'", name, file, line);
+            }
+        }
+        int stale = lines.size() - records.size();
+        if (stale > 0 && stale * 2 >= lines.size()) {
+            log.info("Compacting '{}': dropping {} of {} lines.", file, stale, lines.size());
+            compact();
+        }
+    }
+
+    private void compact() throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<K, V> record : records.entrySet()) {
+                    writer.write(String.join("\t", codec.encode(record.getKey(), record.getValue())));
+                    writer.write('\n');
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException _) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
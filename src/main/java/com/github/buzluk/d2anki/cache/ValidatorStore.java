@@ -0,0 +1,67 @@
+package com.github.buzluk.d2anki.cache;
+
+import com.github.buzluk.d2anki.client.request.Validators;
+import com.github.buzluk.d2anki.exception.CacheException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers the validators of downloaded files, so a later run can ask whether they changed instead of
+ * downloading them again. Stored as {@code url \t etag \t lastModified} lines.
+ */
+@Slf4j
+public class ValidatorStore {
+
+    private static final TsvIndex.Codec<URI, Validators> CODEC = new TsvIndex.Codec<>() {
+        @Override
+        public Map.Entry<URI, Validators> decode(String[] fields) {
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Expected 3 fields, got " + fields.length);
+            }
+            return Map.entry(URI.create(fields[0]), new Validators(
+                    fields[1].isEmpty() ? null : fields[1],
+                    fields[2].isEmpty() ? null : fields[2]));
+        }
+
+        @Override
+        public List<String> encode(URI url, Validators validators) {
+            return List.of(url.toString(),
+                    Objects.toString(validators.etag(), ""), Objects.toString(validators.lastModified(), ""));
+        }
+    };
+
+    private final TsvIndex<URI, Validators> validators;
+
+    public ValidatorStore(Path file) {
+        try {
+            this.validators = new TsvIndex<>(file, "validator", CODEC);
+        } catch (IOException e) {
+            throw new CacheException("Failed to load validators from: " + file, e);
+        }
+    }
+
+    public Validators get(URI url) {
+        return validators.get(url).orElse(Validators.NONE);
+    }
+
+    /**
+     * Keeps the validators a download came with. If they cannot be written, the file is downloaded in full the
+     * next time instead of being revalidated, so the error is only logged.
+     */
+    public void put(URI url, Validators update) {
+        if (update.isEmpty() || validators.get(url).filter(update::equals).isPresent()) {
+            return;
+        }
+        try {
+            validators.put(url, update);
+        } catch (IOException e) {
+            log.warn("Could not store validators for '{}': {}", url, e.getMessage());
+        }
+    }
+}
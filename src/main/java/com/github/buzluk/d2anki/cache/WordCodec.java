@@ -0,0 +1,157 @@
+package com.github.buzluk.d2anki.cache;
+
+import com.github.buzluk.d2anki.model.Accent;
+import com.github.buzluk.d2anki.model.Meaning;
+import com.github.buzluk.d2anki.model.Pronunciation;
+import com.github.buzluk.d2anki.model.Word;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Binary form of a {@link Word} as kept by {@link WordStore}. Strings are length-prefixed UTF-8 and counts are
+ * unsigned varints. Parts of speech and accents repeat across almost every word, so they are written as ids into
+ * the store's symbol table instead of as strings. Bump {@link #VERSION} whenever the layout changes.
+ * <pre>
+ * word       := key:string storedAt:varlong name:string category:symbol
+ *               count:varint pronunciation* count:varint meaning*
+ * pronunciation := accent:symbol phonetic:string soundSrc:string
+ * meaning    := definition:string count:varint example:string*
+ * string     := varint(length + 1) utf8-bytes   -- 0 is null
+ * symbol     := varint(id + 1)                  -- 0 is null
+ * </pre>
+ */
+final class WordCodec {
+
+    static final int VERSION = 1;
+
+    private WordCodec() {
+    }
+
+    /**
+     * @param symbolId the symbol table id of a part of speech or accent name
+     */
+    static byte[] encode(String key, long storedAtMillis, Word word, ToIntFunction<String> symbolId) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        writeString(out, key);
+        writeVarLong(out, storedAtMillis);
+        writeString(out, word.name());
+        writeSymbol(out, word.category(), symbolId);
+        writeVarLong(out, word.pronunciations().size());
+        for (Pronunciation pronunciation : word.pronunciations()) {
+            writeSymbol(out, pronunciation.accent() == null ? null : pronunciation.accent().name(), symbolId);
+            writeString(out, pronunciation.phonetic());
+            writeString(out, pronunciation.soundSrc());
+        }
+        writeVarLong(out, word.meanings().size());
+        for (Meaning meaning : word.meanings()) {
+            writeString(out, meaning.definition());
+            writeVarLong(out, meaning.examples().size());
+            for (String example : meaning.examples()) {
+                writeString(out, example);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads only the leading key and timestamp, which is all the store needs to index a record.
+     */
+    static String readKey(ByteBuffer in) {
+        return readString(in);
+    }
+
+    static long readStoredAt(ByteBuffer in) {
+        return readVarLong(in);
+    }
+
+    /**
+     * @param in positioned just after the key and timestamp
+     */
+    static Word decodeBody(ByteBuffer in, IntFunction<String> symbol) {
+        String name = readString(in);
+        String category = readSymbol(in, symbol);
+        int pronunciationCount = (int) readVarLong(in);
+        List<Pronunciation> pronunciations = new ArrayList<>(pronunciationCount);
+        for (int i = 0; i < pronunciationCount; i++) {
+            String accent = readSymbol(in, symbol);
+            pronunciations.add(new Pronunciation(accent == null ? null : Accent.valueOf(accent),
+                    readString(in), readString(in)));
+        }
+        int meaningCount = (int) readVarLong(in);
+        List<Meaning> meanings = new ArrayList<>(meaningCount);
+        for (int i = 0; i < meaningCount; i++) {
+            String definition = readString(in);
+            int exampleCount = (int) readVarLong(in);
+            List<String> examples = new ArrayList<>(exampleCount);
+            for (int j = 0; j < exampleCount; j++) {
+                examples.add(readString(in));
+            }
+            meanings.add(new Meaning(definition, examples));
+        }
+        return new Word(name, category, pronunciations, meanings);
+    }
+
+    static Word decode(ByteBuffer in, IntFunction<String> symbol) {
+        readKey(in);
+        readStoredAt(in);
+        return decodeBody(in, symbol);
+    }
+
+    static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.writeBytes(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        long length = readVarLong(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("String of " + length + " bytes overruns the record");
+        }
+        byte[] bytes = new byte[(int) length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeSymbol(ByteArrayOutputStream out, String value, ToIntFunction<String> symbolId) {
+        writeVarLong(out, value == null ? 0 : symbolId.applyAsInt(value) + 1L);
+    }
+
+    private static String readSymbol(ByteBuffer in, IntFunction<String> symbol) {
+        int id = (int) readVarLong(in) - 1;
+        return id < 0 ? null : symbol.apply(id);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,329 @@
+package com.github.buzluk.d2anki.cache;
+
+import com.github.buzluk.d2anki.exception.CacheException;
+import com.github.buzluk.d2anki.model.Pronunciation;
+import com.github.buzluk.d2anki.model.Word;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Parsed words from earlier runs, so a deck can be rebuilt without fetching or parsing any page. Records are
+ * appended to a single file that is read through a memory mapping. Opening the store only reads each record's
+ * header and key to build an in-memory offset index; a word is decoded when it is looked up. The last record for a
+ * key wins.
+ * <pre>
+ * file   := magic:int version:int record*
+ * record := type:byte length:varint payload
+ * </pre>
+ * A symbol record adds the next entry of the symbol table that word records refer to (see {@link WordCodec}). A
+ * file written with another codec version or grown past {@value #MAX_FILE_BYTES} bytes is discarded, and a record
+ * cut short by a crash or otherwise damaged is truncated away, with everything after it. Once
+ * replaced word records make up half of the file's words, opening the store rewrites it with the live records only.
+ */
+@Slf4j
+public class WordStore implements AutoCloseable {
+    private static final int MAGIC = 0x44325753; // "D2WS"
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final byte SYMBOL = 1;
+    private static final byte WORD = 2;
+    /**
+     * A mapping cannot reach further, so neither can the file.
+     */
+    private static final long MAX_FILE_BYTES = Integer.MAX_VALUE;
+
+    private record IndexEntry(long offset, int length, long storedAtMillis) {
+    }
+
+    private final Path file;
+    private final Duration ttl;
+    private final Clock clock;
+    private FileChannel channel;
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+    private final List<String> symbols = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile MappedByteBuffer mapped;
+    private long end;
+
+    public WordStore(Path file, Duration ttl) {
+        this(file, ttl, Clock.systemUTC());
+    }
+
+    WordStore(Path file, Duration ttl, Clock clock) {
+        this.file = file;
+        this.ttl = ttl;
+        this.clock = clock;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            load();
+        } catch (IOException e) {
+            throw new CacheException("Failed to open word store at: " + file, e);
+        }
+        log.info("Word store opened at '{}' with {} words.", file.toAbsolutePath(), index.size());
+    }
+
+    /**
+     * The key a word is stored under: the looked-up word as it appears in the dictionary URL.
+     */
+    public static String key(String word) {
+        return word.trim().toLowerCase(Locale.ROOT).replace(' ', '-');
+    }
+
+    /**
+     * The stored word, if it was stored within the TTL.
+     */
+    public Optional<Word> get(String word) {
+        IndexEntry entry = index.get(key(word));
+        if (entry == null || entry.storedAtMillis() + ttl.toMillis() < clock.millis()) {
+            return Optional.empty();
+        }
+        ByteBuffer record = mapping(entry.offset() + entry.length())
+                .slice(Math.toIntExact(entry.offset()), entry.length());
+        return Optional.of(WordCodec.decode(record, symbols::get));
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Appends the word under the key of the looked-up word, unless the same word is already stored and fresh, as
+     * after reparsing with an unchanged parser. A word that cannot be written is only missing from the next run's
+     * store, so the error is logged.
+     */
+    public void put(String lookedUp, Word word) {
+        String key = key(lookedUp);
+        if (get(key).filter(word::equals).isPresent()) {
+            return;
+        }
+        long storedAt = clock.millis();
+        writeLock.lock();
+        try {
+            List<String> newSymbols = new ArrayList<>();
+            addIfNew(word.category(), newSymbols);
+            for (Pronunciation pronunciation : word.pronunciations()) {
+                addIfNew(pronunciation.accent() == null ? null : pronunciation.accent().name(), newSymbols);
+            }
+            for (String symbol : newSymbols) {
+                append(SYMBOL, symbol.getBytes(StandardCharsets.UTF_8));
+                symbolIds.put(symbol, symbols.size());
+                symbols.add(symbol);
+            }
+            byte[] payload = WordCodec.encode(key, storedAt, word, symbolIds::get);
+            long offset = append(WORD, payload);
+            index.put(key, new IndexEntry(offset, payload.length, storedAt));
+        } catch (IOException e) {
+            log.warn("Could not store word '{}': {}", lookedUp, e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void addIfNew(String symbol, List<String> newSymbols) {
+        if (symbol != null && !symbolIds.containsKey(symbol) && !newSymbols.contains(symbol)) {
+            newSymbols.add(symbol);
+        }
+    }
+
+    /**
+     * @return the file offset of the payload
+     * @throws IOException if the record would grow the file past {@link #MAX_FILE_BYTES}
+     */
+    private long append(byte type, byte[] payload) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(6);
+        header.write(type);
+        WordCodec.writeVarLong(header, payload.length);
+        if (end + header.size() + payload.length > MAX_FILE_BYTES) {
+            throw new IOException("Word store is full at " + end + " bytes");
+        }
+        ByteBuffer record = ByteBuffer.allocate(header.size() + payload.length)
+                .put(header.toByteArray())
+                .put(payload)
+                .flip();
+        long position = end;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        long payloadOffset = end + header.size();
+        end = position;
+        return payloadOffset;
+    }
+
+    private MappedByteBuffer mapping(long requiredEnd) {
+        MappedByteBuffer current = mapped;
+        if (current != null && current.capacity() >= requiredEnd) {
+            return current;
+        }
+        writeLock.lock();
+        try {
+            if (mapped == null || mapped.capacity() < requiredEnd) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+            }
+            return mapped;
+        } catch (IOException e) {
+            throw new CacheException("Failed to map word store at: " + file, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            reset();
+            return;
+        }
+        if (size > MAX_FILE_BYTES) {
+            log.warn("Word store at '{}' is larger than {} bytes. Starting a new one.", file, MAX_FILE_BYTES);
+            reset();
+            return;
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int magic = buffer.getInt();
+        int version = buffer.getInt();
+        if (magic != MAGIC || version != WordCodec.VERSION) {
+            log.warn("Word store at '{}' has an unknown format (version {}). Starting a new one.", file, version);
+            reset();
+            return;
+        }
+
+        long lastGood = HEADER_BYTES;
+        int wordRecords = 0;
+        try {
+            while (buffer.hasRemaining()) {
+                byte type = buffer.get();
+                long declared = WordCodec.readVarLong(buffer);
+                if (declared < 0 || declared > buffer.remaining()) {
+                    break;
+                }
+                int length = (int) declared;
+                int payloadOffset = buffer.position();
+                ByteBuffer payload = buffer.slice(payloadOffset, length);
+                if (type == SYMBOL) {
+                    String symbol = StandardCharsets.UTF_8.decode(payload).toString();
+                    symbolIds.put(symbol, symbols.size());
+                    symbols.add(symbol);
+                } else if (type == WORD) {
+                    String key = WordCodec.readKey(payload);
+                    if (key == null) {
+                        break;
+                    }
+                    index.put(key, new IndexEntry(payloadOffset, length, WordCodec.readStoredAt(payload)));
+                    wordRecords++;
+                }
+                buffer.position(payloadOffset + length);
+                lastGood = buffer.position();
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException _) {
+            // A partly written or damaged record; everything before it is intact.
+        }
+        if (lastGood < size) {
+            log.warn("Word store at '{}' has an incomplete or damaged record at byte {}. Truncating it.", file,
+                    lastGood);
+            channel.truncate(lastGood);
+        }
+        end = lastGood;
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+
+        int replaced = wordRecords - index.size();
+        if (replaced > 0 && replaced * 2 >= wordRecords) {
+            log.info("Compacting word store at '{}': dropping {} of {} word records.", file, replaced, wordRecords);
+            compact();
+        }
+    }
+
+    /**
+     * Writes the header, the whole symbol table and the live word records to a new file and swaps it in. Symbols
+     * keep their ids, so word payloads are copied as they are.
+     */
+    private void compact() throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        Map<String, IndexEntry> compacted = new HashMap<>();
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                out.write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(WordCodec.VERSION).array());
+                long position = HEADER_BYTES;
+                for (String symbol : symbols) {
+                    byte[] payload = symbol.getBytes(StandardCharsets.UTF_8);
+                    position += writeRecord(out, SYMBOL, payload) + payload.length;
+                }
+                for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+                    IndexEntry old = entry.getValue();
+                    byte[] payload = new byte[old.length()];
+                    mapped.get(Math.toIntExact(old.offset()), payload);
+                    position += writeRecord(out, WORD, payload);
+                    compacted.put(entry.getKey(), new IndexEntry(position, old.length(), old.storedAtMillis()));
+                    position += payload.length;
+                }
+            }
+            channel.close();
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException _) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.clear();
+        index.putAll(compacted);
+        end = channel.size();
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+    }
+
+    /**
+     * @return the length of the record header, i.e. how far past the current position the payload starts
+     */
+    private static int writeRecord(OutputStream out, byte type, byte[] payload) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(6);
+        header.write(type);
+        WordCodec.writeVarLong(header, payload.length);
+        header.writeTo(out);
+        out.write(payload);
+        return header.size();
+    }
+
+    private void reset() throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(WordCodec.VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, HEADER_BYTES - header.remaining());
+        }
+        end = HEADER_BYTES;
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+    }
+}
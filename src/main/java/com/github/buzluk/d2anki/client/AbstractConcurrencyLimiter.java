@@ -0,0 +1,69 @@
+package com.github.buzluk.d2anki.client;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Permit bookkeeping shared by the limiter implementations. Subclasses only decide how a sample moves the limit;
+ * a lowered limit takes effect by holding back new permits until enough in-flight requests have completed.
+ */
+public abstract class AbstractConcurrencyLimiter implements ConcurrencyLimiter {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+    private int inFlight;
+
+    @Override
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= getLimit()) {
+                permitAvailable.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight >= getLimit()) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void release(RequestOutcome outcome, long rttNanos) {
+        lock.lock();
+        try {
+            onSample(outcome, rttNanos, inFlight);
+            inFlight--;
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called under the limiter lock before the permit of the completed request is returned.
+     */
+    protected abstract void onSample(RequestOutcome outcome, long rttNanos, int inFlight);
+}
@@ -0,0 +1,90 @@
+package com.github.buzluk.d2anki.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Additive-increase/multiplicative-decrease limiter. The limit grows by roughly one permit per limit-worth of
+ * successful samples while the round trip time stays close to its smoothed baseline, is halved on overload
+ * responses and trimmed when the round trip time rises well above the baseline. Samples from requests that were
+ * already in flight when the limit was last lowered are not allowed to lower it again, so a burst of 429s only
+ * counts once.
+ */
+@Slf4j
+public class AimdConcurrencyLimiter extends AbstractConcurrencyLimiter {
+    private static final double OVERLOAD_BACKOFF_RATIO = 0.5;
+    private static final double LATENCY_BACKOFF_RATIO = 0.9;
+    private static final double RTT_TOLERANCE = 2.0;
+    private static final int BASELINE_SMOOTHING_SAMPLES = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private volatile double limit;
+    private double baselineRttNanos;
+    private boolean decreased;
+    private long lastDecreaseNanos;
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= min <= initial <= max but got min=%d, initial=%d, max=%d"
+                    .formatted(minLimit, initialLimit, maxLimit));
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    protected void onSample(RequestOutcome outcome, long rttNanos, int inFlight) {
+        if (outcome == RequestOutcome.IGNORED) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        boolean startedBeforeLastDecrease = decreased && now - rttNanos - lastDecreaseNanos < 0;
+
+        if (outcome == RequestOutcome.OVERLOAD) {
+            if (!startedBeforeLastDecrease) {
+                decrease(OVERLOAD_BACKOFF_RATIO, now, "overload response");
+            }
+            return;
+        }
+
+        if (baselineRttNanos == 0) {
+            baselineRttNanos = rttNanos;
+        }
+
+        if (rttNanos > baselineRttNanos * RTT_TOLERANCE) {
+            if (!startedBeforeLastDecrease) {
+                decrease(LATENCY_BACKOFF_RATIO, now, "rising round trip time");
+            }
+        } else if (inFlight * 2 >= limit) {
+            increase();
+        }
+
+        baselineRttNanos += (rttNanos - baselineRttNanos) / BASELINE_SMOOTHING_SAMPLES;
+    }
+
+    private void increase() {
+        int previous = getLimit();
+        limit = Math.min(maxLimit, limit + 1.0 / limit);
+        if (getLimit() != previous) {
+            log.debug("Concurrency limit increased: {} -> {}", previous, getLimit());
+        }
+    }
+
+    private void decrease(double ratio, long now, String reason) {
+        int previous = getLimit();
+        limit = Math.max(minLimit, limit * ratio);
+        decreased = true;
+        lastDecreaseNanos = now;
+        if (getLimit() != previous) {
+            log.info("Concurrency limit decreased due to {}: {} -> {}", reason, previous, getLimit());
+        }
+    }
+}
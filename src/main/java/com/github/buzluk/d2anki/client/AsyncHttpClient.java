@@ -1,140 +1,402 @@
 package com.github.buzluk.d2anki.client;
 
 import com.github.buzluk.d2anki.client.request.AsyncHttpRequest;
+import com.github.buzluk.d2anki.client.request.RequestPriority;
+import com.github.buzluk.d2anki.exception.RequestFailedException;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
-public class AsyncHttpClient {
-    private static final int MAX_CONCURRENT_REQUESTS = 10;
+public class AsyncHttpClient implements AutoCloseable {
+    private static final double PACER_HEADROOM = 0.9;
+    private static final int PACER_BURST = 1;
 
+    private final ClientConfig config;
+    private final ExecutorService executor;
     private final HttpClient client;
-    private final Semaphore semaphore;
-    private final Queue<AsyncHttpRequest<?>> requestQueue = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final HandlerStage handlerStage;
+    private final Semaphore queueSlots;
     private final Collection<AsyncHttpRequest<?>> failedRequests = new ConcurrentLinkedQueue<>();
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final AtomicInteger coalescedCount = new AtomicInteger(0);
+    private final AtomicInteger hedgedCount = new AtomicInteger(0);
 
     private final AtomicInteger activeTaskCount = new AtomicInteger(0);
-    private final Object termination = new Object();
-
-    private final AtomicInteger consecutiveCriticalFailures = new AtomicInteger(0);
-    private volatile boolean isThrottled = false;
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition idle = idleLock.newCondition();
+    private volatile boolean closed;
 
     public AsyncHttpClient() {
-        log.info("Initializing AsyncHttpClient. Max Concurrent: {}, Timeout: 10s", MAX_CONCURRENT_REQUESTS);
+        this(ClientConfig.defaults());
+    }
+
+    public AsyncHttpClient(ClientConfig config) {
+        this.config = config;
 
-        ExecutorService executor = Executors.newCachedThreadPool();
+        log.info("Initializing AsyncHttpClient. Mode: {}, Timeout: {}s",
+                config.executionMode(), config.connectTimeout().toSeconds());
+
+        this.executor = config.executionMode() == ExecutionMode.VIRTUAL
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newCachedThreadPool();
         this.client = HttpClient.newBuilder()
                 .executor(executor)
                 .followRedirects(HttpClient.Redirect.ALWAYS)
-                .connectTimeout(Duration.ofSeconds(10))
+                .connectTimeout(config.connectTimeout())
                 .version(HttpClient.Version.HTTP_2)
                 .build();
 
-        this.semaphore = new Semaphore(MAX_CONCURRENT_REQUESTS);
-
-        Thread dispatcherThread = new Thread(this::processQueueLoop);
-        dispatcherThread.setName("AsyncHttpClient-Dispatcher");
-        dispatcherThread.start();
+        this.queueSlots = config.maxQueuedRequests() == ClientConfig.UNBOUNDED
+                ? null
+                : new Semaphore(config.maxQueuedRequests());
+        ScheduledThreadPoolExecutor timers = new ScheduledThreadPoolExecutor(1,
+                threadBuilder().name("AsyncHttpClient-Scheduler").factory());
+        timers.setRemoveOnCancelPolicy(true);
+        this.scheduler = timers;
+        this.handlerStage = new HandlerStage(config.handlerThreads());
+    }
 
-        log.debug("Dispatcher thread started.");
+    private Thread.Builder threadBuilder() {
+        return config.executionMode() == ExecutionMode.VIRTUAL
+                ? Thread.ofVirtual()
+                : Thread.ofPlatform().daemon();
     }
 
-    public void sendRequest(AsyncHttpRequest<?> request) {
+    /**
+     * Queues the request and returns a future that completes with its final response after the request's handler
+     * has run, or exceptionally with a {@link RequestFailedException} once its retries are used up.
+     * <p>
+     * With {@link ClientConfig#maxQueuedRequests()} set, this call blocks while that many requests are already
+     * pending, so it must not be called from a completion stage of another request of the same client.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendRequest(AsyncHttpRequest<T> request) {
         log.trace("Entering sendRequest for request: '{}'", request);
+        CompletableFuture<HttpResponse<T>> completion = request.completion();
+        if (closed) {
+            request.fail(new RequestFailedException("Client is closed: " + request.getHttpRequest().uri(), null));
+            return completion;
+        }
+        if (!acquireQueueSlot(request)) {
+            request.fail(new RequestFailedException(
+                    "Interrupted while waiting for a queue slot: " + request.getHttpRequest().uri(), null));
+            return completion;
+        }
+        if (!coalescer.register(request)) {
+            releaseQueueSlot();
+            coalescedCount.incrementAndGet();
+            log.debug("Request for '{}' is already pending. Attached to the in-flight request.", request);
+            return completion;
+        }
         int currentActive = activeTaskCount.incrementAndGet();
-        requestQueue.add(request);
+        enqueue(request, request.getPriority());
         log.debug("Enqueued request for '{}'. Total active tasks: {}", request, currentActive);
-        synchronized (requestQueue) {
-            requestQueue.notifyAll();
-        }
+        return completion;
     }
 
-    private void processQueueLoop() {
-        log.info("Dispatcher loop started processing.");
+    /**
+     * Opens connections to the hosts of the given URIs ahead of the first real request, so that DNS, TCP, TLS and
+     * HTTP/2 setup overlap with whatever the caller does next. The probes bypass the queues and limiters, and their
+     * failures are only logged; the returned future completes once every probe has finished.
+     */
+    public CompletableFuture<Void> warmUp(Collection<URI> uris) {
+        CompletableFuture<?>[] probes = uris.stream()
+                .map(uri -> {
+                    long startNanos = System.nanoTime();
+                    HttpRequest probe = HttpRequest.newBuilder(uri)
+                            .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                            .timeout(config.connectTimeout())
+                            .build();
+                    return client.sendAsync(probe, HttpResponse.BodyHandlers.discarding())
+                            .handle((response, ex) -> {
+                                if (ex != null) {
+                                    log.warn("Warm-up of '{}' failed: {}", uri, ex.getMessage());
+                                } else {
+                                    log.info("Warmed up connection to '{}' in {}ms ({}, status {}).", uri,
+                                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                                            response.version(), response.statusCode());
+                                }
+                                return null;
+                            });
+                })
+                .toArray(CompletableFuture<?>[]::new);
+        return CompletableFuture.allOf(probes);
+    }
 
-        while (!Thread.currentThread().isInterrupted()) {
-            try {
-                if (isThrottled) {
-                    log.trace("Throttling is active. Applying backoff delay.");
-                    applyBackoffDelay();
-                }
-
-                log.trace("Dispatcher waiting for semaphore permit. Available: {}", semaphore.availablePermits());
-                semaphore.acquire();
-
-                AsyncHttpRequest<?> request = requestQueue.poll();
-                if (request == null) {
-                    log.trace("Request queue is empty. Releasing permit and waiting.");
-                    semaphore.release();
-                    synchronized (requestQueue) {
-                        requestQueue.wait();
-                    }
-                    continue;
-                }
-
-                log.debug("Dispatching request for '{}'. Retry count remaining: {}", request, request.getRetryCount());
-                sendAsync(request);
-
-            } catch (InterruptedException _) {
-                log.warn("Dispatcher thread interrupted. Stopping loop.");
-                Thread.currentThread().interrupt();
-            }
+    /**
+     * Creates a handle that tracks only the requests sent through it, so a caller can wait for its own work.
+     */
+    public RequestGroup newGroup() {
+        return newGroup(RequestGroup.Listener.NONE);
+    }
+
+    /**
+     * Like {@link #newGroup()}, with a listener that sees each response of the group before the group settles it.
+     */
+    public RequestGroup newGroup(RequestGroup.Listener listener) {
+        return new RequestGroup(this, Objects.requireNonNull(listener));
+    }
+
+    private boolean acquireQueueSlot(AsyncHttpRequest<?> request) {
+        if (queueSlots == null || queueSlots.tryAcquire()) {
+            return true;
+        }
+        log.debug("Request queue is full. Holding back submission of '{}'.", request);
+        try {
+            queueSlots.acquire();
+            return true;
+        } catch (InterruptedException _) {
+            log.warn("Interrupted while waiting for a queue slot for '{}'.", request);
+            Thread.currentThread().interrupt();
+            return false;
         }
-        log.info("Dispatcher loop terminated.");
     }
 
-    private <T> void sendAsync(AsyncHttpRequest<T> request) {
+    private void releaseQueueSlot() {
+        if (queueSlots != null) {
+            queueSlots.release();
+        }
+    }
+
+    private void enqueue(AsyncHttpRequest<?> request, RequestPriority lane) {
+        bulkheadFor(request).enqueue(request, lane);
+    }
+
+    private Bulkhead bulkheadFor(AsyncHttpRequest<?> request) {
+        return bulkheads.computeIfAbsent(request.getBulkheadKey(),
+                name -> createBulkhead(name, request.getHttpRequest().uri().getHost()));
+    }
+
+    /**
+     * Bulkheads of the same host share one circuit breaker, since a host that is down fails every request class.
+     */
+    private Bulkhead createBulkhead(String name, String host) {
+        ConcurrencyLimiter limiter = config.limiterFactory().get();
+        log.info("Creating bulkhead '{}'. Limiter: {}, Initial Limit: {}",
+                name, limiter.getClass().getSimpleName(), limiter.getLimit());
+        CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(host,
+                key -> new CircuitBreaker(key, config.circuitBreaker()));
+        Bulkhead bulkhead = new Bulkhead(name, limiter, new TokenBucketPacer(PACER_HEADROOM, PACER_BURST),
+                circuitBreaker, config.priorityAging());
+        bulkhead.start(threadBuilder(), request -> sendAsync(bulkhead, request), this::reject);
+        return bulkhead;
+    }
+
+    private <T> void sendAsync(Bulkhead bulkhead, AsyncHttpRequest<T> request) {
         log.trace("Building async HTTP request for '{}'", request);
 
-        client.sendAsync(request.getHttpRequest(), request.getBodyHandler()).thenApply(response -> {
+        long startNanos = System.nanoTime();
+        hedgedExchange(bulkhead, request).handle((response, ex) -> {
+            long rttNanos = System.nanoTime() - startNanos;
+            if (ex != null) {
+                log.error("Async exception occurred for '{}': {}", request, ex.getMessage());
+                bulkhead.getLimiter().release(RequestOutcome.OVERLOAD, rttNanos);
+                bulkhead.getCircuitBreaker().onResult(true, startNanos);
+                handleFailure(request, ex);
+                onTaskCompleted(request);
+                return null;
+            }
+
             log.trace("Received response for '{}'", request);
-            processResponse(request, response);
-            return null;
-        }).exceptionally(ex -> {
-            log.error("Async exception occurred for '{}': {}", request, ex.getMessage());
-            handleFailure(request, ex);
+            int status = response.statusCode();
+            if (status == 200) {
+                bulkhead.getLatencyTracker().record(rttNanos);
+            }
+            bulkhead.getLimiter().release(RequestOutcome.fromStatus(status), rttNanos);
+            bulkhead.getCircuitBreaker().onResult(status >= 500, startNanos);
+            handlerStage.execute(() -> handleResponse(bulkhead, request, response));
             return null;
-        }).whenComplete((result, ex) -> {
-            semaphore.release();
-            int remaining = activeTaskCount.decrementAndGet();
+        });
+    }
 
-            log.trace("Task completed/failed for '{}'. Permit released. Remaining active tasks: {}", request, remaining);
+    /**
+     * Runs on the handler stage, after the body has been received and the permit has been given back.
+     */
+    private <T> void handleResponse(Bulkhead bulkhead, AsyncHttpRequest<T> request, HttpResponse<T> response) {
+        try {
+            processResponse(bulkhead, request, response);
+        } catch (RuntimeException e) {
+            log.error("Response handling failed for '{}': {}", request, e.getMessage());
+            handleFailure(request, e);
+        } finally {
+            onTaskCompleted(request);
+        }
+    }
+
+    /**
+     * Sends the request and, if hedging is enabled and the request allows it, a second copy once the first has been
+     * outstanding for longer than the configured latency percentile of its bulkhead. The copy only goes out while the
+     * host's circuit is closed and the bulkhead's limiter and pacer can spare a permit and a token without waiting,
+     * and the slower of the two is cancelled.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> hedgedExchange(Bulkhead bulkhead, AsyncHttpRequest<T> request) {
+        CompletableFuture<HttpResponse<T>> primary = exchange(bulkhead, request);
+        HedgingPolicy policy = config.hedging();
+        if (policy == ClientConfig.NO_HEDGING || !request.isHedgeable()) {
+            return primary;
+        }
+        OptionalLong threshold = bulkhead.getLatencyTracker()
+                .percentileNanos(policy.percentile(), policy.minSamples());
+        if (threshold.isEmpty()) {
+            return primary;
+        }
+
+        HedgedExchange<T> race = new HedgedExchange<>(primary);
+        ScheduledFuture<?> hedge = scheduler.schedule(() -> sendHedge(bulkhead, request, race),
+                policy.hedgeDelayNanos(threshold.getAsLong()), TimeUnit.NANOSECONDS);
+        race.result().whenComplete((_, _) -> hedge.cancel(false));
+        return race.result();
+    }
 
-            if (remaining == 0 && requestQueue.isEmpty()) {
-                log.debug("Queue empty and no active tasks. Notifying termination lock.");
-                synchronized (termination) {
-                    termination.notifyAll();
-                }
+    private <T> void sendHedge(Bulkhead bulkhead, AsyncHttpRequest<T> request, HedgedExchange<T> race) {
+        if (race.isSettled()) {
+            return;
+        }
+        if (bulkhead.getCircuitBreaker().getState() != CircuitState.CLOSED) {
+            log.debug("Circuit of '{}' is not closed. Not hedging slow request '{}'.", bulkhead.getName(), request);
+            return;
+        }
+        ConcurrencyLimiter limiter = bulkhead.getLimiter();
+        if (!limiter.tryAcquire()) {
+            log.debug("No spare permit in '{}'. Not hedging slow request '{}'.", bulkhead.getName(), request);
+            return;
+        }
+        if (!bulkhead.getPacer().tryAcquire()) {
+            limiter.release(RequestOutcome.IGNORED, 0);
+            log.debug("Pacer of '{}' has no token to spare. Not hedging slow request '{}'.", bulkhead.getName(),
+                    request);
+            return;
+        }
+        log.debug("Request '{}' is slow. Sending a hedged copy.", request);
+        hedgedCount.incrementAndGet();
+        long startNanos = System.nanoTime();
+        CompletableFuture<HttpResponse<T>> copy = exchange(bulkhead, request);
+        copy.whenComplete((_, _) -> limiter.release(RequestOutcome.IGNORED, System.nanoTime() - startNanos));
+        race.race(copy);
+    }
+
+    /**
+     * Starts the exchange and cancels it once it has run for longer than the bulkhead's current request timeout, so
+     * a stalled response stream gives its permit back and the request is retried like any other failure.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> exchange(Bulkhead bulkhead, AsyncHttpRequest<T> request) {
+        CompletableFuture<HttpResponse<T>> attempt = startExchange(request);
+        Duration timeout = requestTimeout(bulkhead);
+        ScheduledFuture<?> deadline = scheduler.schedule(() -> {
+            if (attempt.cancel(true)) {
+                log.warn("Request '{}' timed out after {}ms. Cancelling it.", request, timeout.toMillis());
+            }
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        attempt.whenComplete((_, _) -> deadline.cancel(false));
+        return attempt;
+    }
+
+    private Duration requestTimeout(Bulkhead bulkhead) {
+        TimeoutPolicy policy = config.requestTimeout();
+        return policy.timeoutFor(
+                bulkhead.getLatencyTracker().percentileNanos(policy.percentile(), policy.minSamples()));
+    }
+
+    /**
+     * Cancelling the returned future aborts the exchange, in virtual mode by interrupting the blocked sender.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> startExchange(AsyncHttpRequest<T> request) {
+        if (config.executionMode() != ExecutionMode.VIRTUAL) {
+            return client.sendAsync(request.getHttpRequest(), request.getBodyHandler());
+        }
+
+        CompletableFuture<HttpResponse<T>> future = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                future.complete(client.send(request.getHttpRequest(), request.getBodyHandler()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        future.whenComplete((_, _) -> {
+            if (future.isCancelled()) {
+                task.cancel(true);
             }
         });
+        return future;
+    }
+
+    private void onTaskCompleted(AsyncHttpRequest<?> request) {
+        int remaining = activeTaskCount.decrementAndGet();
+
+        log.trace("Task completed/failed for '{}'. Permit released. Remaining active tasks: {}", request, remaining);
+
+        if (remaining == 0) {
+            log.debug("No active tasks left. Signalling idle waiters.");
+            idleLock.lock();
+            try {
+                idle.signalAll();
+            } finally {
+                idleLock.unlock();
+            }
+        }
     }
 
-    private <T> void processResponse(AsyncHttpRequest<T> request, HttpResponse<T> response) {
+    private <T> void processResponse(Bulkhead bulkhead, AsyncHttpRequest<T> request, HttpResponse<T> response) {
         int status = response.statusCode();
         log.debug("Processing response for '{}'. Status Code: {}", request, status);
 
         if (status == 200) {
-            resetThrottle();
             log.trace("Successful response (200) for '{}'. Calling handler.", request);
             request.handleHttpResponse(response);
+            land(request, response);
+        } else if (status == 304) {
+            log.debug("Not modified (304): '{}'. Keeping the local copy.", request);
+            request.handleNotModified(response);
+            land(request, response);
         } else if (status == 404) {
-            resetThrottle();
             log.warn("Word not found (404): '{}'. Skipping retry.", request);
-        } else if (status == 429 || status >= 500) {
-            log.warn("Critical Server Error/Rate Limit ({}) for '{}'. Triggering throttle.", status, request);
-            triggerThrottle();
+            request.handleNotFound(response);
+            land(request, response);
+        } else if (status == 429 || status == 503) {
+            RateLimitHeaders rateLimit = RateLimitHeaders.parse(response.headers(), Instant.now());
+            log.warn("Rate Limit ({}) for '{}'. Server asked to wait {}ms. Concurrency limit of '{}' is now {}.",
+                    status, request, rateLimit.pause().map(Duration::toMillis).orElse(0L),
+                    bulkhead.getName(), bulkhead.getLimiter().getLimit());
+            bulkhead.getPacer().onRateLimited(rateLimit);
+            handleRetryLogic(request, rateLimit.pause().orElse(Duration.ZERO));
+        } else if (status >= 500) {
+            log.warn("Critical Server Error ({}) for '{}'. Concurrency limit of '{}' is now {}.",
+                    status, request, bulkhead.getName(), bulkhead.getLimiter().getLimit());
             handleRetryLogic(request);
         } else {
             log.warn("Unexpected status code ({}) for '{}'. Attempting retry.", status, request);
@@ -147,62 +409,137 @@ public class AsyncHttpClient {
         handleRetryLogic(request);
     }
 
+    /**
+     * A retried request has already waited through its back-off, so it goes ahead of fresh submissions unless it
+     * was more urgent to begin with.
+     */
+    private static RequestPriority retryLane(AsyncHttpRequest<?> request) {
+        RequestPriority priority = request.getPriority();
+        return priority.compareTo(RequestPriority.RETRY) < 0 ? priority : RequestPriority.RETRY;
+    }
+
     private void handleRetryLogic(AsyncHttpRequest<?> request) {
+        handleRetryLogic(request, Duration.ZERO);
+    }
+
+    private void handleRetryLogic(AsyncHttpRequest<?> request, Duration minDelay) {
         if (request.shouldRetry()) {
             int retriesLeft = request.decrementRetryCount();
-            log.info("Retrying request for '{}'. Retries left: {}", request, retriesLeft);
-            sendRequest(request);
+            long delayMillis = Math.max(minDelay.toMillis(),
+                    config.retryPolicy().nextDelayMillis(request.getLastRetryDelayMillis()));
+            request.setLastRetryDelayMillis(delayMillis);
+            log.info("Retrying request for '{}' in {}ms. Retries left: {}", request, delayMillis, retriesLeft);
+            activeTaskCount.incrementAndGet();
+            scheduler.schedule(() -> enqueue(request, retryLane(request)), delayMillis, TimeUnit.MILLISECONDS);
         } else {
             log.error("Max retries reached for '{}'. Moving to failedRequests list.", request);
             failedRequests.add(request);
+            land(request, null, "Max retries reached for ");
         }
     }
 
-    private void triggerThrottle() {
-        int fails = consecutiveCriticalFailures.incrementAndGet();
-        isThrottled = true;
-        log.warn("Throttle triggered. Consecutive critical failures: {}", fails);
+    private void reject(AsyncHttpRequest<?> request) {
+        log.error("Circuit open for '{}'. Moving to failedRequests list.", request);
+        failedRequests.add(request);
+        land(request, null, "Circuit open for ");
+        onTaskCompleted(request);
     }
 
-    private void resetThrottle() {
-        if (consecutiveCriticalFailures.get() > 0) {
-            log.info("Resetting throttle. System recovered.");
-            consecutiveCriticalFailures.set(0);
-            isThrottled = false;
+    private <T> void land(AsyncHttpRequest<T> request, HttpResponse<T> response) {
+        land(request, response, null);
+    }
+
+    private <T> void land(AsyncHttpRequest<T> request, HttpResponse<T> response, String failureReason) {
+        List<AsyncHttpRequest<?>> followers = coalescer.land(request);
+        releaseQueueSlot();
+        if (response == null) {
+            request.fail(new RequestFailedException(failureReason + request.getHttpRequest().uri(), null));
+        } else {
+            request.complete(response);
+        }
+        for (AsyncHttpRequest<?> follower : followers) {
+            deliverToFollower(request, follower, response);
         }
     }
 
-    private void applyBackoffDelay() {
+    @SuppressWarnings("unchecked")
+    private <T> void deliverToFollower(AsyncHttpRequest<T> leader, AsyncHttpRequest<?> follower,
+                                       HttpResponse<T> response) {
+        AsyncHttpRequest<T> typedFollower = (AsyncHttpRequest<T>) follower;
+        if (response == null) {
+            log.error("Coalesced request for '{}' failed with its leader. Moving to failedRequests list.", follower);
+            failedRequests.add(follower);
+            typedFollower.fail(new RequestFailedException(
+                    "Coalesced request failed with its leader: " + follower.getHttpRequest().uri(), null));
+            return;
+        }
         try {
-            int fails = consecutiveCriticalFailures.get();
-            long backoff = Math.min(5000, 200 * (long) Math.pow(2, fails));
-
-            log.warn("Applying dynamic backoff: {}ms due to {} consecutive failures.", backoff, fails);
-            Thread.sleep(backoff);
-        } catch (InterruptedException _) {
-            log.error("Interrupted during backoff sleep.");
-            Thread.currentThread().interrupt();
+            typedFollower.handleCoalesced(leader, response);
+            typedFollower.complete(response);
+        } catch (RuntimeException e) {
+            log.error("Handler of coalesced request for '{}' failed: {}", follower, e.getMessage());
+            failedRequests.add(follower);
+            typedFollower.fail(new RequestFailedException(
+                    "Handler of coalesced request failed: " + follower.getHttpRequest().uri(), e));
         }
     }
 
+    /**
+     * Blocks until every request sent to this client, including pending retries, has completed. A task counts as
+     * active from submission until it lands, and the last completion signals under the same lock that the waiter
+     * checks the count under, so the wake-up cannot be missed.
+     */
     public void waitForFinish() {
         log.info("Waiting for all requests to finish...");
-        synchronized (termination) {
-            while (activeTaskCount.get() > 0 || !requestQueue.isEmpty()) {
-                try {
-                    log.debug("Waiting... Active: {}, Queue: {}", activeTaskCount.get(), requestQueue.size());
-                    termination.wait(2000);
-                } catch (InterruptedException _) {
-                    log.error("WaitForFinish interrupted.");
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+        idleLock.lock();
+        try {
+            while (activeTaskCount.get() > 0) {
+                log.debug("Waiting... Active: {}", activeTaskCount.get());
+                idle.await();
             }
+        } catch (InterruptedException _) {
+            log.error("WaitForFinish interrupted.");
+            Thread.currentThread().interrupt();
+        } finally {
+            idleLock.unlock();
         }
-        log.info("All requests finished. Total failed requests: {}", failedRequests.size());
+        log.info("All requests finished. Total failed requests: {}. {}", failedRequests.size(), metrics());
+    }
+
+    public ClientMetrics metrics() {
+        Map<String, BulkheadMetrics> bulkheadMetrics = new TreeMap<>();
+        bulkheads.forEach((name, bulkhead) ->
+                bulkheadMetrics.put(name, bulkhead.metrics(requestTimeout(bulkhead))));
+        return new ClientMetrics(
+                bulkheadMetrics,
+                handlerStage.metrics(),
+                activeTaskCount.get(),
+                coalescedCount.get(),
+                hedgedCount.get(),
+                failedRequests.size()
+        );
     }
 
     public List<AsyncHttpRequest<?>> getFailedRequests() {
         return new ArrayList<>(failedRequests);
     }
-}
\ No newline at end of file
+
+    /**
+     * Stops the dispatcher of every bulkhead and shuts down the scheduler, the handler stage and the HTTP client.
+     * Requests that have not landed by then are abandoned and their futures never complete, so wait for them with
+     * {@link #waitForFinish()} or a {@link RequestGroup} first. Requests sent after closing fail straight away.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        log.info("Closing AsyncHttpClient. {}", metrics());
+        bulkheads.values().forEach(Bulkhead::stop);
+        scheduler.shutdownNow();
+        handlerStage.shutdown();
+        client.shutdownNow();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.buzluk.d2anki.client;
+
+import com.github.buzluk.d2anki.client.request.AsyncHttpRequest;
+import com.github.buzluk.d2anki.client.request.RequestPriority;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * An isolated lane of the client: its own queue, concurrency limiter, pacer and dispatcher thread. Requests are
+ * routed to a bulkhead by {@link AsyncHttpRequest#getBulkheadKey()}, so a host that is being throttled only slows
+ * down the requests that target it.
+ */
+@Slf4j
+final class Bulkhead {
+    private static final int LATENCY_SAMPLES = 256;
+
+    @Getter
+    private final String name;
+    @Getter
+    private final ConcurrencyLimiter limiter;
+    @Getter
+    private final TokenBucketPacer pacer;
+    @Getter
+    private final CircuitBreaker circuitBreaker;
+    @Getter
+    private final LatencyTracker latencyTracker = new LatencyTracker(LATENCY_SAMPLES);
+    private final PriorityRequestQueue queue;
+    private volatile Thread dispatcher;
+
+    Bulkhead(String name, ConcurrencyLimiter limiter, TokenBucketPacer pacer, CircuitBreaker circuitBreaker,
+             Duration priorityAging) {
+        this.name = name;
+        this.limiter = limiter;
+        this.pacer = pacer;
+        this.circuitBreaker = circuitBreaker;
+        this.queue = new PriorityRequestQueue(priorityAging);
+    }
+
+    /**
+     * @param sender   sends a request that holds a limiter permit
+     * @param rejecter fails a request that was turned away by an open circuit
+     */
+    void start(Thread.Builder threadBuilder, Consumer<AsyncHttpRequest<?>> sender,
+               Consumer<AsyncHttpRequest<?>> rejecter) {
+        dispatcher = threadBuilder.name("AsyncHttpClient-Dispatcher-" + name)
+                .start(() -> processQueueLoop(sender, rejecter));
+        log.debug("Dispatcher thread for bulkhead '{}' started.", name);
+    }
+
+    /**
+     * Interrupts the dispatcher wherever it is blocked, in the queue, the breaker, the limiter or the pacer, which
+     * ends its loop. Requests still queued are left where they are.
+     */
+    void stop() {
+        Thread thread = dispatcher;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    void enqueue(AsyncHttpRequest<?> request, RequestPriority lane) {
+        queue.add(request, lane);
+    }
+
+    BulkheadMetrics metrics(Duration requestTimeout) {
+        return new BulkheadMetrics(
+                limiter.getLimit(),
+                pacer.getPermitsPerSecond(),
+                limiter.getInFlight(),
+                queue.size(),
+                circuitBreaker.getState(),
+                requestTimeout
+        );
+    }
+
+    /**
+     * The dispatcher blocks in {@link PriorityRequestQueue#take()} until a request is available and only then waits
+     * for a permit. The queue's own lock orders the hand-off, so a request added while the dispatcher is going to
+     * sleep always wakes it up. While the circuit is open the dispatcher parks on the breaker, which holds back the
+     * whole bulkhead.
+     */
+    private void processQueueLoop(Consumer<AsyncHttpRequest<?>> sender, Consumer<AsyncHttpRequest<?>> rejecter) {
+        log.info("Dispatcher loop for bulkhead '{}' started processing.", name);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                AsyncHttpRequest<?> request = queue.take();
+
+                if (!circuitBreaker.acquire()) {
+                    log.debug("Circuit of '{}' is open. Rejecting '{}'.", name, request);
+                    rejecter.accept(request);
+                    continue;
+                }
+
+                log.trace("Dispatcher '{}' waiting for a permit. In flight: {}, Limit: {}",
+                        name, limiter.getInFlight(), limiter.getLimit());
+                limiter.acquire();
+                pacer.acquire();
+
+                log.debug("Dispatching request for '{}'. Retry count remaining: {}", request, request.getRetryCount());
+                sender.accept(request);
+
+            } catch (InterruptedException _) {
+                log.warn("Dispatcher thread of bulkhead '{}' interrupted. Stopping loop.", name);
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("Dispatcher loop for bulkhead '{}' terminated.", name);
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.buzluk.d2anki.client;
+
+import java.time.Duration;
+
+public record BulkheadMetrics(
+        int concurrencyLimit,
+        double pacedPermitsPerSecond,
+        int inFlight,
+        int queued,
+        CircuitState circuitState,
+        Duration requestTimeout
+) {
+}
@@ -0,0 +1,95 @@
+package com.github.buzluk.d2anki.client;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stops dispatching to a host that keeps failing. After {@link CircuitBreakerPolicy#failureThreshold()}
+ * consecutive failures the circuit opens and {@link #acquire()} holds requests back, so they do not use up their
+ * retries against a host that is down. Once the cool-down has passed a single probe is let through: its success
+ * closes the circuit, its failure opens it again. When several probes in a row have failed, requests are rejected
+ * instead of held back until a probe succeeds.
+ * <p>
+ * Results of requests that were sent before the last state change are ignored, so a burst of failures that was
+ * already in flight when the circuit opened cannot fail the probe.
+ */
+@Slf4j
+final class CircuitBreaker {
+
+    private final String name;
+    private final CircuitBreakerPolicy policy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+
+    @Getter
+    private volatile CircuitState state = CircuitState.CLOSED;
+    private long stateChangedNanos = System.nanoTime();
+    private int consecutiveFailures;
+    private int failedProbes;
+
+    CircuitBreaker(String name, CircuitBreakerPolicy policy) {
+        this.name = name;
+        this.policy = policy;
+    }
+
+    /**
+     * Waits until a request may be sent.
+     *
+     * @return {@code false} if the request should be failed right away because the host is still down
+     */
+    boolean acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (state != CircuitState.CLOSED) {
+                long waitNanos = state == CircuitState.OPEN
+                        ? stateChangedNanos + policy.openDuration().toNanos() - System.nanoTime()
+                        : policy.openDuration().toNanos();
+                if (state == CircuitState.OPEN && waitNanos <= 0) {
+                    transition(CircuitState.HALF_OPEN);
+                    return true;
+                }
+                if (failedProbes >= policy.failFastAfterProbes()) {
+                    return false;
+                }
+                stateChanged.awaitNanos(waitNanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onResult(boolean failure, long startNanos) {
+        lock.lock();
+        try {
+            if (startNanos - stateChangedNanos < 0) {
+                return;
+            }
+            if (!failure) {
+                consecutiveFailures = 0;
+                failedProbes = 0;
+                if (state != CircuitState.CLOSED) {
+                    transition(CircuitState.CLOSED);
+                }
+            } else if (state == CircuitState.HALF_OPEN) {
+                failedProbes++;
+                transition(CircuitState.OPEN);
+            } else if (state == CircuitState.CLOSED && ++consecutiveFailures >= policy.failureThreshold()) {
+                consecutiveFailures = 0;
+                transition(CircuitState.OPEN);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void transition(CircuitState next) {
+        log.warn("Circuit of '{}' moved from {} to {}. Failed probes: {}", name, state, next, failedProbes);
+        state = next;
+        stateChangedNanos = System.nanoTime();
+        stateChanged.signalAll();
+    }
+}
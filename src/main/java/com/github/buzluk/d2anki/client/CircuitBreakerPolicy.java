@@ -0,0 +1,20 @@
+package com.github.buzluk.d2anki.client;
+
+import java.time.Duration;
+
+/**
+ * @param failureThreshold    consecutive failures that open the circuit
+ * @param openDuration        how long the circuit stays open before a probe is let through
+ * @param failFastAfterProbes consecutive failed probes after which requests are failed instead of held back while
+ *                            the circuit is open
+ */
+public record CircuitBreakerPolicy(int failureThreshold, Duration openDuration, int failFastAfterProbes) {
+
+    public CircuitBreakerPolicy {
+        if (failureThreshold < 1 || failFastAfterProbes < 1 || openDuration.isNegative() || openDuration.isZero()) {
+            throw new IllegalArgumentException(
+                    "Expected positive values but got failureThreshold=%d, openDuration=%s, failFastAfterProbes=%d"
+                            .formatted(failureThreshold, openDuration, failFastAfterProbes));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.buzluk.d2anki.client;
+
+public enum CircuitState {
+    /**
+     * Requests flow normally while consecutive failures are counted.
+     */
+    CLOSED,
+    /**
+     * The host is considered down. Requests are held back until the cool-down has passed.
+     */
+    OPEN,
+    /**
+     * A single probe request is in flight and decides whether the circuit closes or opens again.
+     */
+    HALF_OPEN
+}
@@ -0,0 +1,38 @@
+package com.github.buzluk.d2anki.client;
+
+import lombok.Builder;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+@Builder(toBuilder = true)
+public record ClientConfig(
+        ExecutionMode executionMode,
+        Supplier<ConcurrencyLimiter> limiterFactory,
+        Duration connectTimeout,
+        RetryPolicy retryPolicy,
+        int maxQueuedRequests,
+        Duration priorityAging,
+        CircuitBreakerPolicy circuitBreaker,
+        HedgingPolicy hedging,
+        TimeoutPolicy requestTimeout,
+        int handlerThreads
+) {
+    public static final int UNBOUNDED = 0;
+    public static final HedgingPolicy NO_HEDGING = null;
+
+    public static ClientConfig defaults() {
+        return new ClientConfig(
+                ExecutionMode.PLATFORM,
+                () -> new FixedConcurrencyLimiter(10),
+                Duration.ofSeconds(10),
+                new RetryPolicy(Duration.ofMillis(200), Duration.ofSeconds(5)),
+                UNBOUNDED,
+                Duration.ofSeconds(2),
+                new CircuitBreakerPolicy(5, Duration.ofSeconds(10), 3),
+                NO_HEDGING,
+                new TimeoutPolicy(99, 3, Duration.ofSeconds(2), Duration.ofSeconds(30), 20),
+                Runtime.getRuntime().availableProcessors()
+        );
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.buzluk.d2anki.client;
+
+import java.util.Map;
+
+public record ClientMetrics(
+        Map<String, BulkheadMetrics> bulkheads,
+        HandlerStageMetrics handlers,
+        int activeTasks,
+        int coalesced,
+        int hedged,
+        int failed
+) {
+}
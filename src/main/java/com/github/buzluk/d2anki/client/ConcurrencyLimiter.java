@@ -0,0 +1,22 @@
+package com.github.buzluk.d2anki.client;
+
+/**
+ * Bounds the number of in-flight requests. Every successful {@link #acquire()} must be paired with exactly one
+ * {@link #release(RequestOutcome, long)}, which also feeds the sample back so that adaptive implementations can
+ * move the limit.
+ */
+public interface ConcurrencyLimiter {
+
+    void acquire() throws InterruptedException;
+
+    /**
+     * Takes a permit only if one is free right now, for work that is worth doing only while there is spare capacity.
+     */
+    boolean tryAcquire();
+
+    void release(RequestOutcome outcome, long rttNanos);
+
+    int getLimit();
+
+    int getInFlight();
+}
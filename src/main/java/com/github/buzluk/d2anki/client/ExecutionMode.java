@@ -0,0 +1,12 @@
+package com.github.buzluk.d2anki.client;
+
+public enum ExecutionMode {
+    /**
+     * A platform dispatcher thread and a cached platform pool for the {@code HttpClient}.
+     */
+    PLATFORM,
+    /**
+     * A virtual dispatcher thread and one virtual thread per in-flight request.
+     */
+    VIRTUAL
+}
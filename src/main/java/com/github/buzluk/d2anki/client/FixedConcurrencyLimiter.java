@@ -0,0 +1,23 @@
+package com.github.buzluk.d2anki.client;
+
+public class FixedConcurrencyLimiter extends AbstractConcurrencyLimiter {
+
+    private final int limit;
+
+    public FixedConcurrencyLimiter(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        this.limit = limit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    protected void onSample(RequestOutcome outcome, long rttNanos, int inFlight) {
+        // the limit never moves
+    }
+}
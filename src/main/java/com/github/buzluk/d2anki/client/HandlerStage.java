@@ -0,0 +1,61 @@
+package com.github.buzluk.d2anki.client;
+
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs response handlers on a fixed pool of platform threads, sized to the cores by default, so parsing neither
+ * holds a network permit nor competes with the I/O threads. Requests wait in an unbounded queue; the number of
+ * requests in flight is already bounded upstream by the limiters and the submission slots.
+ */
+final class HandlerStage {
+    private static final int LATENCY_SAMPLES = 1024;
+
+    private final ThreadPoolExecutor pool;
+    private final LatencyTracker latency = new LatencyTracker(LATENCY_SAMPLES);
+
+    HandlerStage(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                task -> Thread.ofPlatform()
+                        .daemon()
+                        .name("AsyncHttpClient-Handler-" + counter.incrementAndGet())
+                        .unstarted(task));
+    }
+
+    /**
+     * Queues the handler. The recorded latency covers the time spent waiting in the queue and running.
+     */
+    void execute(Runnable handler) {
+        long queuedNanos = System.nanoTime();
+        pool.execute(() -> {
+            try {
+                handler.run();
+            } finally {
+                latency.record(System.nanoTime() - queuedNanos);
+            }
+        });
+    }
+
+    /**
+     * Lets the handlers already queued run, then ends the pool's threads.
+     */
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    HandlerStageMetrics metrics() {
+        return new HandlerStageMetrics(
+                pool.getQueue().size(),
+                pool.getActiveCount(),
+                Duration.ofNanos(latency.percentileNanos(50, 1).orElse(0)),
+                Duration.ofNanos(latency.percentileNanos(99, 1).orElse(0))
+        );
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.buzluk.d2anki.client;
+
+import java.time.Duration;
+
+public record HandlerStageMetrics(
+        int queued,
+        int running,
+        Duration p50Latency,
+        Duration p99Latency
+) {
+}
@@ -0,0 +1,47 @@
+package com.github.buzluk.d2anki.client;
+
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Races several attempts of the same exchange. The first successful response wins and the other attempts are
+ * cancelled; the race only fails once every attempt has failed.
+ */
+final class HedgedExchange<T> {
+
+    private final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+    private final List<CompletableFuture<HttpResponse<T>>> attempts = new CopyOnWriteArrayList<>();
+    private final AtomicInteger running = new AtomicInteger();
+
+    HedgedExchange(CompletableFuture<HttpResponse<T>> primary) {
+        race(primary);
+    }
+
+    void race(CompletableFuture<HttpResponse<T>> attempt) {
+        running.incrementAndGet();
+        attempts.add(attempt);
+        attempt.whenComplete((response, ex) -> {
+            if (ex == null) {
+                if (result.complete(response)) {
+                    attempts.forEach(other -> other.cancel(true));
+                }
+            } else if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(ex);
+            }
+        });
+        if (result.isDone()) {
+            attempt.cancel(true);
+        }
+    }
+
+    boolean isSettled() {
+        return result.isDone();
+    }
+
+    CompletableFuture<HttpResponse<T>> result() {
+        return result;
+    }
+}
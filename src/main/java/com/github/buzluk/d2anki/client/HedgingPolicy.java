@@ -0,0 +1,26 @@
+package com.github.buzluk.d2anki.client;
+
+import java.time.Duration;
+
+/**
+ * Sends a second copy of a hedgeable request once it has been outstanding for longer than the given latency
+ * percentile of its bulkhead, and keeps whichever response arrives first.
+ *
+ * @param percentile latency percentile in {@code (0, 100)} after which the hedge is sent
+ * @param minDelay   lower bound of the hedge delay, so a fast host is not sent duplicates on every jitter
+ * @param minSamples latency samples a bulkhead needs before it starts hedging
+ */
+public record HedgingPolicy(double percentile, Duration minDelay, int minSamples) {
+
+    public HedgingPolicy {
+        if (!(percentile > 0 && percentile < 100) || minDelay.isNegative() || minSamples < 1) {
+            throw new IllegalArgumentException(
+                    "Expected 0 < percentile < 100, minDelay >= 0 and minSamples >= 1 but got %s, %s, %d"
+                            .formatted(percentile, minDelay, minSamples));
+        }
+    }
+
+    long hedgeDelayNanos(long percentileNanos) {
+        return Math.max(minDelay.toNanos(), percentileNanos);
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.buzluk.d2anki.client;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the most recent round-trip times of a bulkhead in a ring buffer and answers percentile queries over them.
+ */
+final class LatencyTracker {
+
+    private final long[] samples;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int next;
+    private int count;
+
+    LatencyTracker(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.samples = new long[capacity];
+    }
+
+    void record(long rttNanos) {
+        lock.lock();
+        try {
+            samples[next] = rttNanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The nearest-rank percentile of the recorded samples, or empty while fewer than {@code minSamples} exist.
+     */
+    OptionalLong percentileNanos(double percentile, int minSamples) {
+        long[] sorted;
+        lock.lock();
+        try {
+            if (count < minSamples || count == 0) {
+                return OptionalLong.empty();
+            }
+            sorted = Arrays.copyOf(samples, count);
+        } finally {
+            lock.unlock();
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return OptionalLong.of(sorted[Math.clamp(rank - 1, 0, sorted.length - 1)]);
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.buzluk.d2anki.client;
+
+import com.github.buzluk.d2anki.client.request.AsyncHttpRequest;
+import com.github.buzluk.d2anki.client.request.RequestPriority;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A blocking queue with one FIFO lane per {@link RequestPriority}. {@link #take()} serves the most urgent non-empty
+ * lane, except that a request which has been waiting longer than the aging threshold is served first regardless of
+ * its lane, so a steady stream of urgent work cannot starve the lower lanes.
+ */
+final class PriorityRequestQueue {
+
+    private static final RequestPriority[] LANES = RequestPriority.values();
+
+    private final long agingNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final List<Deque<Entry>> lanes;
+    private int size;
+
+    PriorityRequestQueue(Duration agingThreshold) {
+        if (agingThreshold == null || agingThreshold.isNegative()) {
+            throw new IllegalArgumentException("agingThreshold must not be negative: " + agingThreshold);
+        }
+        this.agingNanos = agingThreshold.toNanos();
+        this.lanes = Arrays.stream(LANES).<Deque<Entry>>map(_ -> new ArrayDeque<>()).toList();
+    }
+
+    void add(AsyncHttpRequest<?> request, RequestPriority lane) {
+        lock.lock();
+        try {
+            lanes.get(lane.ordinal()).addLast(new Entry(request, System.nanoTime()));
+            size++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    AsyncHttpRequest<?> take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            size--;
+            return lanes.get(nextLane(System.nanoTime())).pollFirst().request();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The lane whose head has waited the longest past the aging threshold, or else the most urgent non-empty lane.
+     */
+    private int nextLane(long now) {
+        int first = -1;
+        int aged = -1;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < lanes.size(); i++) {
+            Entry head = lanes.get(i).peekFirst();
+            if (head == null) {
+                continue;
+            }
+            if (first < 0) {
+                first = i;
+            }
+            if (now - head.enqueuedNanos() > agingNanos && head.enqueuedNanos() < oldest) {
+                aged = i;
+                oldest = head.enqueuedNanos();
+            }
+        }
+        return aged >= 0 ? aged : first;
+    }
+
+    private record Entry(AsyncHttpRequest<?> request, long enqueuedNanos) {
+    }
+}
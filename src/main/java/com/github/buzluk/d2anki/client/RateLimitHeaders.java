@@ -0,0 +1,115 @@
+package com.github.buzluk.d2anki.client;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * What a server told us about its rate limit. Understands {@code Retry-After} in both its delta-seconds and
+ * HTTP-date forms, the IETF {@code RateLimit-*} headers (including the {@code w=} window of
+ * {@code RateLimit-Policy}) and the common {@code X-RateLimit-*} variants.
+ */
+public record RateLimitHeaders(
+        Optional<Duration> retryAfter,
+        OptionalDouble permitsPerSecond,
+        Optional<Duration> resetAfter
+) {
+    private static final Pattern LEADING_NUMBER = Pattern.compile("^\\s*(\\d+)");
+    private static final Pattern WINDOW = Pattern.compile("\\bw\\s*=\\s*(\\d+)");
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    public static RateLimitHeaders parse(HttpHeaders headers, Instant now) {
+        Optional<Duration> retryAfter = headers.firstValue("Retry-After")
+                .flatMap(value -> parseRetryAfter(value, now));
+
+        OptionalLong limit = firstNumber(headers, "RateLimit-Limit", "X-RateLimit-Limit");
+        OptionalLong remaining = firstNumber(headers, "RateLimit-Remaining", "X-RateLimit-Remaining");
+        Optional<Duration> reset = firstNumber(headers, "RateLimit-Reset", "X-RateLimit-Reset")
+                .stream()
+                .mapToObj(value -> toDuration(value, now))
+                .findFirst();
+        OptionalLong window = findWindow(headers);
+
+        OptionalDouble permitsPerSecond = OptionalDouble.empty();
+        if (limit.isPresent() && window.isPresent() && window.getAsLong() > 0) {
+            permitsPerSecond = OptionalDouble.of((double) limit.getAsLong() / window.getAsLong());
+        } else if (remaining.isPresent() && remaining.getAsLong() > 0 && reset.isPresent()
+                && !reset.get().isZero()) {
+            permitsPerSecond = OptionalDouble.of(remaining.getAsLong() / (reset.get().toMillis() / 1000.0));
+        }
+
+        Optional<Duration> resetAfter = remaining.isPresent() && remaining.getAsLong() == 0
+                ? reset
+                : Optional.empty();
+
+        return new RateLimitHeaders(retryAfter, permitsPerSecond, resetAfter);
+    }
+
+    static Optional<Duration> parseRetryAfter(String value, Instant now) {
+        String trimmed = value.trim();
+        if (trimmed.chars().allMatch(Character::isDigit) && !trimmed.isEmpty()) {
+            return Optional.of(Duration.ofSeconds(Long.parseLong(trimmed)));
+        }
+        try {
+            Instant date = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            Duration delay = Duration.between(now, date);
+            return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+        } catch (DateTimeParseException _) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The longest pause the server asked for, if any.
+     */
+    public Optional<Duration> pause() {
+        if (retryAfter.isPresent() && resetAfter.isPresent()) {
+            return Optional.of(retryAfter.get().compareTo(resetAfter.get()) >= 0 ? retryAfter.get() : resetAfter.get());
+        }
+        return retryAfter.isPresent() ? retryAfter : resetAfter;
+    }
+
+    private static OptionalLong firstNumber(HttpHeaders headers, String... names) {
+        for (String name : names) {
+            Optional<String> value = headers.firstValue(name);
+            if (value.isEmpty()) {
+                continue;
+            }
+            Matcher matcher = LEADING_NUMBER.matcher(value.get());
+            if (matcher.find()) {
+                return OptionalLong.of(Long.parseLong(matcher.group(1)));
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    private static OptionalLong findWindow(HttpHeaders headers) {
+        for (String name : new String[]{"RateLimit-Policy", "RateLimit-Limit", "X-RateLimit-Limit"}) {
+            Optional<String> value = headers.firstValue(name);
+            if (value.isEmpty()) {
+                continue;
+            }
+            Matcher matcher = WINDOW.matcher(value.get());
+            if (matcher.find()) {
+                return OptionalLong.of(Long.parseLong(matcher.group(1)));
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    private static Duration toDuration(long resetValue, Instant now) {
+        if (resetValue < EPOCH_SECONDS_THRESHOLD) {
+            return Duration.ofSeconds(resetValue);
+        }
+        Duration delay = Duration.between(now, Instant.ofEpochSecond(resetValue));
+        return delay.isNegative() ? Duration.ZERO : delay;
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.buzluk.d2anki.client;
+
+import com.github.buzluk.d2anki.client.request.AsyncHttpRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Single-flight bookkeeping: the first request for a key leads a flight and is sent, later requests for the same
+ * key follow it until the leader lands and are then completed with the leader's result.
+ */
+final class RequestCoalescer {
+
+    private final ConcurrentMap<Key, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * @return {@code true} if the request leads a new flight and has to be sent, {@code false} if it was attached
+     * to a pending one
+     */
+    boolean register(AsyncHttpRequest<?> request) {
+        Key key = Key.of(request);
+        Flight flight = new Flight(request);
+        while (true) {
+            Flight existing = flights.putIfAbsent(key, flight);
+            if (existing == null) {
+                return true;
+            }
+            if (existing.attach(request)) {
+                return false;
+            }
+            flights.remove(key, existing);
+        }
+    }
+
+    /**
+     * Ends the flight led by the request and returns the followers that attached to it.
+     */
+    List<AsyncHttpRequest<?>> land(AsyncHttpRequest<?> request) {
+        Key key = Key.of(request);
+        Flight flight = flights.get(key);
+        if (flight == null || flight.leader != request) {
+            return List.of();
+        }
+        flights.remove(key, flight);
+        return flight.land();
+    }
+
+    private record Key(Class<?> type, Object value) {
+        static Key of(AsyncHttpRequest<?> request) {
+            return new Key(request.getClass(), request.getCoalescingKey());
+        }
+    }
+
+    private static final class Flight {
+        private final AsyncHttpRequest<?> leader;
+        private final List<AsyncHttpRequest<?>> followers = new ArrayList<>();
+        private boolean landed;
+
+        private Flight(AsyncHttpRequest<?> leader) {
+            this.leader = leader;
+        }
+
+        synchronized boolean attach(AsyncHttpRequest<?> follower) {
+            if (landed) {
+                return false;
+            }
+            followers.add(follower);
+            return true;
+        }
+
+        synchronized List<AsyncHttpRequest<?>> land() {
+            landed = true;
+            return List.copyOf(followers);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.buzluk.d2anki.client;
+
+import com.github.buzluk.d2anki.client.request.AsyncHttpRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A batch of requests sent through a shared {@link AsyncHttpClient}. Waiting on a group only waits for the
+ * requests that were sent through it, and returns as soon as the last of them completes and its {@link Listener}
+ * has seen it. The group only counts its pending requests, so its footprint does not grow with the number of
+ * requests sent through it.
+ */
+@Slf4j
+public final class RequestGroup {
+
+    /**
+     * Sees every request of the group that completed with a response, before the group counts it as settled.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        Listener NONE = (_, _) -> {
+        };
+
+        void completed(AsyncHttpRequest<?> request, HttpResponse<?> response);
+    }
+
+    private final AsyncHttpClient client;
+    private final Listener listener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    private int pending;
+    private int sent;
+
+    RequestGroup(AsyncHttpClient client, Listener listener) {
+        this.client = client;
+        this.listener = listener;
+    }
+
+    public <T> CompletableFuture<HttpResponse<T>> send(AsyncHttpRequest<T> request) {
+        lock.lock();
+        try {
+            pending++;
+            sent++;
+        } finally {
+            lock.unlock();
+        }
+        CompletableFuture<HttpResponse<T>> completion = client.sendRequest(request);
+        completion.whenComplete((response, _) -> {
+            try {
+                if (response != null) {
+                    listener.completed(request, response);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Group listener failed for '{}': {}", request, e.toString());
+            } finally {
+                onSettled();
+            }
+        });
+        return completion;
+    }
+
+    /**
+     * Completes normally once every request sent so far has completed, whether it succeeded or failed. Failed
+     * requests are still reported through {@link AsyncHttpClient#getFailedRequests()}.
+     */
+    public CompletableFuture<Void> completion() {
+        lock.lock();
+        try {
+            if (pending == 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void await() {
+        log.debug("Waiting for {} grouped requests to complete.", size());
+        completion().join();
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return sent;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSettled() {
+        List<CompletableFuture<Void>> released;
+        lock.lock();
+        try {
+            if (--pending > 0 || waiters.isEmpty()) {
+                return;
+            }
+            released = List.copyOf(waiters);
+            waiters.clear();
+        } finally {
+            lock.unlock();
+        }
+        released.forEach(waiter -> waiter.complete(null));
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.buzluk.d2anki.client;
+
+public enum RequestOutcome {
+    /**
+     * The server answered normally; the sample may grow the limit.
+     */
+    SUCCESS,
+    /**
+     * The server signalled overload (429, 5xx) or the exchange failed; the limit must shrink.
+     */
+    OVERLOAD,
+    /**
+     * The response says nothing about server capacity.
+     */
+    IGNORED;
+
+    public static RequestOutcome fromStatus(int status) {
+        if (status == 429 || status >= 500) {
+            return OVERLOAD;
+        }
+        if (status == 200 || status == 304 || status == 404) {
+            return SUCCESS;
+        }
+        return IGNORED;
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.buzluk.d2anki.client;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decorrelated jitter backoff: each delay is drawn uniformly from {@code [base, previous * 3]} and capped, so
+ * retries of requests that failed together spread out instead of hitting the server again in lockstep.
+ */
+public record RetryPolicy(Duration baseDelay, Duration maxDelay) {
+
+    public RetryPolicy {
+        if (baseDelay.isNegative() || baseDelay.isZero() || maxDelay.compareTo(baseDelay) < 0) {
+            throw new IllegalArgumentException("Expected 0 < base <= max but got base=%s, max=%s"
+                    .formatted(baseDelay, maxDelay));
+        }
+    }
+
+    public long nextDelayMillis(long previousDelayMillis) {
+        long base = baseDelay.toMillis();
+        long upper = Math.max(base, Math.min(maxDelay.toMillis(), previousDelayMillis * 3));
+        return upper == base ? base : ThreadLocalRandom.current().nextLong(base, upper + 1);
+    }
+}
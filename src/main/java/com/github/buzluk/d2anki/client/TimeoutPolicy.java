@@ -0,0 +1,34 @@
+package com.github.buzluk.d2anki.client;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Derives the timeout of an exchange from the latency its bulkhead has observed: the given percentile times a
+ * multiplier, clamped to {@code [floor, ceiling]}. Until enough samples exist the ceiling applies.
+ *
+ * @param percentile latency percentile in {@code (0, 100)} the timeout is based on
+ * @param multiplier headroom over that percentile, at least 1
+ * @param floor      shortest timeout, so a fast host does not time out on ordinary jitter
+ * @param ceiling    longest timeout, also used while the bulkhead has too few samples
+ * @param minSamples latency samples a bulkhead needs before the percentile is trusted
+ */
+public record TimeoutPolicy(double percentile, double multiplier, Duration floor, Duration ceiling, int minSamples) {
+
+    public TimeoutPolicy {
+        if (!(percentile > 0 && percentile < 100) || !(multiplier >= 1) || floor.isNegative() || floor.isZero()
+                || ceiling.compareTo(floor) < 0 || minSamples < 1) {
+            throw new IllegalArgumentException(
+                    "Invalid timeout policy: percentile=%s, multiplier=%s, floor=%s, ceiling=%s, minSamples=%d"
+                            .formatted(percentile, multiplier, floor, ceiling, minSamples));
+        }
+    }
+
+    public Duration timeoutFor(OptionalLong percentileNanos) {
+        if (percentileNanos.isEmpty()) {
+            return ceiling;
+        }
+        long nanos = (long) Math.min(percentileNanos.getAsLong() * multiplier, Long.MAX_VALUE);
+        return Duration.ofNanos(Math.clamp(nanos, floor.toNanos(), ceiling.toNanos()));
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.buzluk.d2anki.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Paces dispatches with a token bucket whose refill rate is learned from the server's rate limit headers. Until a
+ * rate is known the pacer lets everything through; once one is, dispatch runs at a fraction ({@code headroom}) of
+ * it with at most {@code burst} requests back to back. A {@code Retry-After} or an exhausted window pauses the
+ * bucket as a whole.
+ */
+@Slf4j
+public class TokenBucketPacer {
+
+    private final double headroom;
+    private final int burst;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private double permitsPerSecond = Double.POSITIVE_INFINITY;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private long pausedUntilNanos = lastRefillNanos;
+
+    public TokenBucketPacer(double headroom, int burst) {
+        if (headroom <= 0 || headroom > 1 || burst < 1) {
+            throw new IllegalArgumentException("Expected 0 < headroom <= 1 and burst >= 1 but got headroom=%s, burst=%d"
+                    .formatted(headroom, burst));
+        }
+        this.headroom = headroom;
+        this.burst = burst;
+        this.tokens = burst;
+    }
+
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            for (long waitNanos = take(); waitNanos > 0; waitNanos = take()) {
+                changed.awaitNanos(waitNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a token only if one is available right now, e.g. for a request that is not worth delaying.
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            return take() == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code 0} if a token was taken, otherwise how long to wait before trying again
+     */
+    private long take() {
+        long now = System.nanoTime();
+        long waitNanos = pausedUntilNanos - now;
+        if (waitNanos > 0) {
+            return waitNanos;
+        }
+        if (Double.isInfinite(permitsPerSecond)) {
+            return 0;
+        }
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max((long) ((1 - tokens) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1)), 1);
+    }
+
+    public void onRateLimited(RateLimitHeaders headers) {
+        lock.lock();
+        try {
+            headers.permitsPerSecond().ifPresent(this::updateRate);
+            headers.pause().ifPresent(this::pause);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getPermitsPerSecond() {
+        lock.lock();
+        try {
+            return permitsPerSecond;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void updateRate(double serverRate) {
+        double paced = serverRate * headroom;
+        if (paced <= 0 || paced == permitsPerSecond) {
+            return;
+        }
+        refill(System.nanoTime());
+        log.info("Pacing requests at {} per second (server limit {} per second).",
+                "%.2f".formatted(paced), "%.2f".formatted(serverRate));
+        permitsPerSecond = paced;
+        tokens = Math.min(tokens, burst);
+    }
+
+    private void pause(Duration duration) {
+        long until = System.nanoTime() + duration.toNanos();
+        if (until - pausedUntilNanos > 0) {
+            log.warn("Server asked to pause for {}ms. Holding dispatch.", duration.toMillis());
+            pausedUntilNanos = until;
+            tokens = 0;
+            lastRefillNanos = until;
+        }
+    }
+
+    private void refill(long now) {
+        if (now - lastRefillNanos <= 0) {
+            return;
+        }
+        if (!Double.isInfinite(permitsPerSecond)) {
+            double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            tokens = Math.min(burst, tokens + elapsedSeconds * permitsPerSecond);
+        }
+        lastRefillNanos = now;
+    }
+}
@@ -1,10 +1,13 @@
 package com.github.buzluk.d2anki.client.request;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Getter
@@ -16,6 +19,15 @@ public abstract class AsyncHttpRequest<T> {
 
     private final AtomicInteger retryCount;
 
+    @Setter
+    private volatile long lastRetryDelayMillis;
+
+    @Setter
+    private volatile RequestPriority priority = RequestPriority.DEFINITION;
+
+    @Getter(AccessLevel.NONE)
+    private final CompletableFuture<HttpResponse<T>> completion = new CompletableFuture<>();
+
     protected AsyncHttpRequest(HttpRequest httpRequest, int maxRetries) {
         this.httpRequest = httpRequest;
         this.retryCount = new AtomicInteger(maxRetries);
@@ -23,8 +35,61 @@ public abstract class AsyncHttpRequest<T> {
 
     public abstract HttpResponse.BodyHandler<T> getBodyHandler();
 
+    /**
+     * Requests with the same key share a queue, a concurrency limit and a pacer inside the client. By default every
+     * request class gets its own bulkhead per host, so e.g. audio downloads keep going while definition lookups on
+     * the same host are backing off.
+     */
+    public String getBulkheadKey() {
+        return getClass().getSimpleName() + "@" + httpRequest.uri().getHost();
+    }
+
+    /**
+     * Requests of the same class with equal keys are coalesced into one exchange while one of them is pending.
+     */
+    public Object getCoalescingKey() {
+        return httpRequest.uri();
+    }
+
+    /**
+     * Whether the client may send a second copy of this request while the first is slow. Only idempotent requests
+     * whose losing copy can be thrown away should opt in.
+     */
+    public boolean isHedgeable() {
+        return false;
+    }
+
     public abstract void handleHttpResponse(HttpResponse<T> response);
 
+    /**
+     * Called instead of {@link #handleHttpResponse} when a conditional request is answered with
+     * {@code 304 Not Modified}, i.e. the copy the request was revalidating is still current.
+     */
+    public void handleNotModified(HttpResponse<T> response) {
+    }
+
+    /**
+     * Called instead of {@link #handleHttpResponse} when the server answers {@code 404 Not Found}. The request is not
+     * retried either way.
+     */
+    public void handleNotFound(HttpResponse<T> response) {
+    }
+
+    /**
+     * Called instead of the handlers above for a request that was coalesced with {@code leader}, after the leader
+     * has handled the response they share. By default the response is handled again as if this request had received
+     * it; requests whose handling has side effects or is expensive can take the leader's result instead.
+     */
+    public void handleCoalesced(AsyncHttpRequest<T> leader, HttpResponse<T> response) {
+        switch (response.statusCode()) {
+            case 200 -> handleHttpResponse(response);
+            case 304 -> handleNotModified(response);
+            case 404 -> handleNotFound(response);
+            default -> {
+            }
+        }
+    }
+
     public final int decrementRetryCount() {
         return retryCount.updateAndGet(val -> val > 0 ? val - 1 : 0);
     }
@@ -37,5 +102,20 @@ public abstract class AsyncHttpRequest<T> {
         return retryCount.get();
     }
 
+    /**
+     * Completes with the final response once the request has been handled, or exceptionally once it has given up.
+     * Completing the returned future from outside has no effect on the request itself.
+     */
+    public final CompletableFuture<HttpResponse<T>> completion() {
+        return completion.copy();
+    }
+
+    public final void complete(HttpResponse<T> response) {
+        completion.complete(response);
+    }
+
+    public final void fail(Throwable cause) {
+        completion.completeExceptionally(cause);
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.github.buzluk.d2anki.client.request;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A string body handler that decodes the {@code Content-Encoding} the server chose in response to
+ * {@link #ACCEPT_ENCODING}. Compressed bodies are inflated chunk by chunk as they arrive, so decompression overlaps
+ * with the transfer instead of following it.
+ */
+public final class DecompressingBodyHandler implements HttpResponse.BodyHandler<String> {
+
+    /**
+     * The encodings this handler can decode. Brotli is not offered since the JDK has no decoder for it.
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private final Charset charset;
+
+    private DecompressingBodyHandler(Charset charset) {
+        this.charset = charset;
+    }
+
+    public static DecompressingBodyHandler ofString(Charset charset) {
+        return new DecompressingBodyHandler(charset);
+    }
+
+    /**
+     * Wraps a body stream in a blocking decoder for its {@code Content-Encoding}, for callers that read the body as
+     * a stream instead of through this handler.
+     */
+    public static InputStream decode(InputStream body, HttpResponse.ResponseInfo responseInfo) throws IOException {
+        return switch (contentEncoding(responseInfo)) {
+            case "identity", "" -> body;
+            case "gzip", "x-gzip" -> new GZIPInputStream(body);
+            case "deflate" -> inflating(body);
+            default -> throw new IOException("Unsupported Content-Encoding: " + contentEncoding(responseInfo));
+        };
+    }
+
+    /**
+     * Tells zlib-wrapped from raw deflate data the same way {@link InflatingBodySubscriber} does, by peeking at the
+     * first two bytes.
+     */
+    private static InputStream inflating(InputStream body) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(body, 2);
+        byte[] start = in.readNBytes(2);
+        in.unread(start);
+        boolean zlib = start.length < 2 || InflatingBodySubscriber.isZlibWrapped(start[0] & 0xff, start[1] & 0xff);
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(in, inflater) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public HttpResponse.BodySubscriber<String> apply(HttpResponse.ResponseInfo responseInfo) {
+        String encoding = contentEncoding(responseInfo);
+        return switch (encoding) {
+            case "identity", "" -> HttpResponse.BodySubscribers.ofString(charset);
+            case "gzip", "x-gzip" -> new InflatingBodySubscriber(charset, true);
+            case "deflate" -> new InflatingBodySubscriber(charset, false);
+            default -> throw new UncheckedIOException(new IOException("Unsupported Content-Encoding: " + encoding));
+        };
+    }
+
+    private static String contentEncoding(HttpResponse.ResponseInfo responseInfo) {
+        return responseInfo.headers().firstValue("Content-Encoding")
+                .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                .orElse("identity");
+    }
+}
@@ -5,26 +5,46 @@ import lombok.extern.slf4j.Slf4j;
 import java.net.URI;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
 
 @Slf4j
 public class FileDownloadRequest extends AsyncHttpRequest<Path> {
     private final Path targetPath;
+    private final BiConsumer<URI, Validators> onDownloaded;
 
-    private FileDownloadRequest(HttpRequest httpRequest, Path targetPath) {
+    private FileDownloadRequest(HttpRequest httpRequest, Path targetPath, BiConsumer<URI, Validators> onDownloaded) {
         super(httpRequest, 5);
         this.targetPath = targetPath;
+        this.onDownloaded = Objects.requireNonNull(onDownloaded);
+        setPriority(RequestPriority.BULK_AUDIO);
     }
 
     public static FileDownloadRequest of(String url, Path outputDirectory) {
+        return of(url, outputDirectory, Validators.NONE, (_, _) -> {
+        });
+    }
+
+    /**
+     * A download that only transfers the file if it changed since {@code known} were received, leaving the existing
+     * file in place on {@code 304 Not Modified}.
+     *
+     * @param onDownloaded receives the validators of a newly downloaded file
+     */
+    public static FileDownloadRequest of(String url, Path outputDirectory, Validators known,
+                                         BiConsumer<URI, Validators> onDownloaded) {
         String fileName = extractFileName(url);
         Path targetPath = outputDirectory.resolve(fileName);
         final HttpRequest req = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64)")
                 .GET().build();
-        return new FileDownloadRequest(req, targetPath);
+        HttpRequest conditional = Files.exists(targetPath) ? known.conditional(req) : req;
+        return new FileDownloadRequest(conditional, targetPath, onDownloaded);
     }
 
 
@@ -46,26 +66,35 @@ public class FileDownloadRequest extends AsyncHttpRequest<Path> {
         throw new IllegalArgumentException("URL does not point to a valid MP3 file: " + url);
     }
 
+    @Override
+    public Object getCoalescingKey() {
+        return List.of(getHttpRequest().uri(), targetPath);
+    }
+
     @Override
     public HttpResponse.BodyHandler<Path> getBodyHandler() {
-        return HttpResponse.BodyHandlers.ofFile(targetPath,
+        HttpResponse.BodyHandler<Path> toFile = HttpResponse.BodyHandlers.ofFile(targetPath,
                 StandardOpenOption.CREATE,
                 StandardOpenOption.WRITE,
                 StandardOpenOption.TRUNCATE_EXISTING);
+        // Only a 200 carries the file; anything else must leave the copy on disk untouched.
+        return responseInfo -> responseInfo.statusCode() == 200
+                ? toFile.apply(responseInfo)
+                : HttpResponse.BodySubscribers.replacing(targetPath);
     }
 
+    /**
+     * Only called for a 200; the client retries or gives up on other statuses without handling them.
+     */
     @Override
     public void handleHttpResponse(HttpResponse<Path> response) {
-        if (response.statusCode() == 200) {
-            log.info("File downloaded successfully: {}", targetPath);
-        } else {
-            try {
-                java.nio.file.Files.deleteIfExists(targetPath);
-            } catch (Exception e) {
-                log.warn("Could not cleanup failed download: {}", targetPath, e);
-            }
-            log.warn("Download failed with status: {} for {}", response.statusCode(), targetPath);
-        }
+        log.info("File downloaded successfully: {}", targetPath);
+        onDownloaded.accept(getHttpRequest().uri(), Validators.from(response.headers()));
+    }
+
+    @Override
+    public void handleNotModified(HttpResponse<Path> response) {
+        log.debug("File is up to date: {}", targetPath);
     }
 
 }
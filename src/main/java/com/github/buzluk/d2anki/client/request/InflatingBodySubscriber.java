@@ -0,0 +1,240 @@
+package com.github.buzluk.d2anki.client.request;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates a gzip or deflate body as its chunks arrive and decodes the result as a string on completion. Gzip
+ * headers and trailers are parsed here, including the CRC and length check, since {@link Inflater} only handles
+ * the compressed data itself.
+ */
+final class InflatingBodySubscriber implements HttpResponse.BodySubscriber<String> {
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private enum State { HEADER, BODY, TRAILER, DONE }
+
+    private final Charset charset;
+    private final boolean gzip;
+    private final CompletableFuture<String> body = new CompletableFuture<>();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+    private final byte[] chunk = new byte[16 * 1024];
+    private final CRC32 crc = new CRC32();
+    private Inflater inflater;
+    private Flow.Subscription subscription;
+    private State state = State.HEADER;
+
+    InflatingBodySubscriber(Charset charset, boolean gzip) {
+        this.charset = charset;
+        this.gzip = gzip;
+    }
+
+    @Override
+    public CompletionStage<String> getBody() {
+        return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+        if (body.isDone()) {
+            return;
+        }
+        try {
+            for (ByteBuffer buffer : buffers) {
+                feed(buffer);
+            }
+        } catch (IOException | DataFormatException e) {
+            subscription.cancel();
+            fail(e instanceof IOException io ? io : new ZipException(e.getMessage()));
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (state == State.HEADER && pending.size() == 0) {
+            body.complete("");
+            return;
+        }
+        if (state != State.DONE) {
+            fail(new EOFException("Unexpected end of compressed stream"));
+            return;
+        }
+        end();
+        body.complete(inflated.toString(charset));
+    }
+
+    private void feed(ByteBuffer in) throws IOException, DataFormatException {
+        while (in.hasRemaining()) {
+            switch (state) {
+                case HEADER -> in = readHeader(in);
+                case BODY -> inflate(in);
+                case TRAILER -> readTrailer(in);
+                case DONE -> in.position(in.limit());
+            }
+        }
+    }
+
+    /**
+     * Buffers input until the whole header has arrived, then returns what follows it.
+     */
+    private ByteBuffer readHeader(ByteBuffer in) throws IOException {
+        if (!gzip) {
+            inflater = new Inflater(!isZlibWrapped(in));
+            state = State.BODY;
+            return in;
+        }
+        drainTo(in, pending, in.remaining());
+        byte[] bytes = pending.toByteArray();
+        int length = gzipHeaderLength(bytes);
+        if (length < 0) {
+            return in;
+        }
+        pending.reset();
+        inflater = new Inflater(true);
+        state = State.BODY;
+        return ByteBuffer.wrap(bytes, length, bytes.length - length);
+    }
+
+    private void inflate(ByteBuffer in) throws IOException, DataFormatException {
+        inflater.setInput(in);
+        while (!inflater.finished() && !inflater.needsInput()) {
+            int n = inflater.inflate(chunk);
+            if (n == 0 && inflater.needsDictionary()) {
+                throw new ZipException("Compressed stream requires a preset dictionary");
+            }
+            inflated.write(chunk, 0, n);
+            if (gzip) {
+                crc.update(chunk, 0, n);
+            }
+        }
+        if (inflater.finished()) {
+            state = gzip ? State.TRAILER : State.DONE;
+        }
+    }
+
+    private void readTrailer(ByteBuffer in) throws IOException {
+        drainTo(in, pending, GZIP_TRAILER_LENGTH - pending.size());
+        if (pending.size() < GZIP_TRAILER_LENGTH) {
+            return;
+        }
+        byte[] trailer = pending.toByteArray();
+        if (readInt(trailer, 0) != (int) crc.getValue()) {
+            throw new ZipException("Corrupt GZIP trailer: CRC mismatch");
+        }
+        if (readInt(trailer, 4) != (int) inflater.getBytesWritten()) {
+            throw new ZipException("Corrupt GZIP trailer: length mismatch");
+        }
+        state = State.DONE;
+    }
+
+    /**
+     * The length of the gzip header at the start of {@code bytes}, or {@code -1} if it has not fully arrived yet.
+     */
+    private static int gzipHeaderLength(byte[] bytes) throws ZipException {
+        if (bytes.length < 10) {
+            return -1;
+        }
+        if (readShort(bytes, 0) != GZIP_MAGIC || bytes[2] != 8) {
+            throw new ZipException("Not in GZIP format");
+        }
+        int flags = bytes[3];
+        int position = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (bytes.length < position + 2) {
+                return -1;
+            }
+            position += 2 + readShort(bytes, position);
+        }
+        if ((flags & FNAME) != 0) {
+            position = skipZeroTerminated(bytes, position);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            position = skipZeroTerminated(bytes, position);
+        }
+        if ((flags & FHCRC) != 0 && position >= 0) {
+            position += 2;
+        }
+        return position >= 0 && position <= bytes.length ? position : -1;
+    }
+
+    private static int skipZeroTerminated(byte[] bytes, int position) {
+        if (position < 0) {
+            return -1;
+        }
+        for (int i = position; i < bytes.length; i++) {
+            if (bytes[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isZlibWrapped(ByteBuffer in) {
+        if (in.remaining() < 2) {
+            return true;
+        }
+        return isZlibWrapped(in.get(in.position()) & 0xff, in.get(in.position() + 1) & 0xff);
+    }
+
+    /**
+     * Servers disagree on whether {@code deflate} means zlib-wrapped or raw data, so the first two bytes decide.
+     */
+    static boolean isZlibWrapped(int cmf, int flg) {
+        return (cmf & 0x0f) == 8 && ((cmf << 8) | flg) % 31 == 0;
+    }
+
+    private static void drainTo(ByteBuffer in, ByteArrayOutputStream out, int max) {
+        int n = Math.min(max, in.remaining());
+        for (int i = 0; i < n; i++) {
+            out.write(in.get());
+        }
+    }
+
+    private static int readShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return readShort(bytes, offset) | readShort(bytes, offset + 2) << 16;
+    }
+
+    private void fail(Throwable cause) {
+        end();
+        body.completeExceptionally(cause);
+    }
+
+    private void end() {
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.buzluk.d2anki.client.request;
+
+import java.net.URI;
+import java.util.Optional;
+
+/**
+ * Keeps the raw pages that {@link SearchingWordRequest} receives, e.g. to parse them again without the network.
+ */
+public interface PageSink {
+
+    PageSink NONE = new PageSink() {
+        @Override
+        public void fetched(URI url, String page, Validators validators) {
+        }
+
+        @Override
+        public Optional<String> notModified(URI url) {
+            return Optional.empty();
+        }
+    };
+
+    /**
+     * Called with every page the server sent, before it is parsed.
+     */
+    void fetched(URI url, String page, Validators validators);
+
+    /**
+     * Called when the server confirmed that the stored page is still current.
+     *
+     * @return the stored page, or empty if there is none
+     */
+    Optional<String> notModified(URI url);
+
+    /**
+     * Called when the server answered that there is no page at the URL.
+     */
+    default void notFound(URI url) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.buzluk.d2anki.client.request;
+
+/**
+ * Dispatch lanes of a bulkhead, from the most to the least urgent.
+ */
+public enum RequestPriority {
+    /**
+     * Work a user is actively waiting on.
+     */
+    INTERACTIVE,
+    /**
+     * Requests that already waited through a back-off and are sent again.
+     */
+    RETRY,
+    /**
+     * Definition lookups that gate card generation.
+     */
+    DEFINITION,
+    /**
+     * Bulk media downloads that nothing else waits for.
+     */
+    BULK_AUDIO
+}
@@ -1,5 +1,7 @@
 package com.github.buzluk.d2anki.client.request;
 
+import com.github.buzluk.d2anki.exception.NotAnEntryException;
+import com.github.buzluk.d2anki.model.LookupMiss;
 import com.github.buzluk.d2anki.model.Word;
 import com.github.buzluk.d2anki.parser.OxfordHtmlParser;
 import lombok.extern.slf4j.Slf4j;
@@ -8,6 +10,7 @@ import java.net.URI;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.function.Consumer;
 
@@ -15,35 +18,150 @@ import static java.util.Objects.requireNonNull;
 
 @Slf4j
 public class SearchingWordRequest extends AsyncHttpRequest<String> {
+    static final Consumer<LookupMiss> LOG_MISS =
+            miss -> log.warn("No entry at '{}': got a {} page.", miss.url(), miss.kind());
+
     private final Consumer<Word> responseHandler;
+    private final Consumer<LookupMiss> missHandler;
+    private final PageSink pageSink;
+    private final HttpRequest unconditional;
+    private volatile boolean storedPageUnusable;
+    /**
+     * What the page turned out to be, kept for the requests coalesced with this one; at most one is set.
+     */
+    private volatile Word parsedWord;
+    private volatile LookupMiss parsedMiss;
 
-    private SearchingWordRequest(HttpRequest req, Consumer<Word> responseHandler, int maxRetries) {
-        super(req, maxRetries);
+    private SearchingWordRequest(HttpRequest req, Validators validators, Consumer<Word> responseHandler,
+                                 Consumer<LookupMiss> missHandler, PageSink pageSink, int maxRetries) {
+        super(validators.conditional(req), maxRetries);
+        this.unconditional = req;
         this.responseHandler = Objects.requireNonNull(responseHandler);
+        this.missHandler = Objects.requireNonNull(missHandler);
+        this.pageSink = Objects.requireNonNull(pageSink);
     }
 
     public static SearchingWordRequest forWord(String word, Consumer<Word> responseHandler) {
+        return forWord(word, responseHandler, PageSink.NONE);
+    }
+
+    /**
+     * @param pageSink receives the raw page before it is parsed, e.g. to cache it
+     */
+    public static SearchingWordRequest forWord(String word, Consumer<Word> responseHandler, PageSink pageSink) {
+        return forHomograph(word, 1, responseHandler, LOG_MISS, pageSink);
+    }
+
+    /**
+     * Looks up the {@code homograph}-th entry of the word, e.g. {@code lead_2} for the noun after the verb.
+     *
+     * @param missHandler receives suggestion and error pages served in place of the entry; these are not retried
+     */
+    public static SearchingWordRequest forHomograph(String word, int homograph, Consumer<Word> responseHandler,
+                                                    Consumer<LookupMiss> missHandler, PageSink pageSink) {
+        return new SearchingWordRequest(definitionRequest(word, homograph), Validators.NONE, responseHandler,
+                missHandler, pageSink, 5);
+    }
+
+    /**
+     * Like {@link #forHomograph}, but the server may answer that the page {@code pageSink} holds is still current,
+     * in which case that page is parsed instead. If the stored page is missing or cannot be parsed, the request is
+     * retried without validators, so the page is fetched again rather than confirmed again.
+     */
+    public static SearchingWordRequest revalidate(String word, int homograph, Consumer<Word> responseHandler,
+                                                  Consumer<LookupMiss> missHandler, PageSink pageSink,
+                                                  Validators validators) {
+        return new SearchingWordRequest(definitionRequest(word, homograph), validators, responseHandler,
+                missHandler, pageSink, 5);
+    }
+
+    public static URI definitionUri(String word) {
+        return definitionUri(word, 1);
+    }
+
+    public static URI definitionUri(String word, int homograph) {
         String cleanWord = requireNonNull(word).trim();
-        String formattedWord = cleanWord.toLowerCase().replace(' ', '-');
-        String url = "https://www.oxfordlearnersdictionaries.com/definition/english/" + formattedWord + "_1";
+        String formattedWord = cleanWord.toLowerCase(Locale.ROOT).replace(' ', '-');
+        return URI.create("https://www.oxfordlearnersdictionaries.com/definition/english/"
+                + formattedWord + "_" + homograph);
+    }
 
-        HttpRequest req = HttpRequest
-                .newBuilder(URI.create(url))
+    static HttpRequest definitionRequest(String word) {
+        return definitionRequest(word, 1);
+    }
+
+    static HttpRequest definitionRequest(String word, int homograph) {
+        return HttpRequest
+                .newBuilder(definitionUri(word, homograph))
                 .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64)")
+                .header("Accept-Encoding", DecompressingBodyHandler.ACCEPT_ENCODING)
                 .GET()
                 .build();
+    }
 
-        return new SearchingWordRequest(req, responseHandler, 5);
+    @Override
+    public HttpRequest getHttpRequest() {
+        return storedPageUnusable ? unconditional : super.getHttpRequest();
     }
 
     @Override
     public HttpResponse.BodyHandler<String> getBodyHandler() {
-        return HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8);
+        return DecompressingBodyHandler.ofString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean isHedgeable() {
+        return true;
     }
 
     @Override
     public void handleHttpResponse(HttpResponse<String> response) {
-        Word word = OxfordHtmlParser.parseWord(response.body());
+        pageSink.fetched(getHttpRequest().uri(), response.body(), Validators.from(response.headers()));
+        parse(response.body());
+    }
+
+    @Override
+    public void handleNotModified(HttpResponse<String> response) {
+        URI url = getHttpRequest().uri();
+        try {
+            parse(pageSink.notModified(url)
+                    .orElseThrow(() -> new IllegalStateException("No stored page to reuse for: " + url)));
+        } catch (RuntimeException e) {
+            storedPageUnusable = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public void handleNotFound(HttpResponse<String> response) {
+        pageSink.notFound(getHttpRequest().uri());
+    }
+
+    /**
+     * Takes the page the leader has already stored and parsed, instead of storing and parsing it once per
+     * coalesced request. A 404 was passed on to the page sink by the leader as well.
+     */
+    @Override
+    public void handleCoalesced(AsyncHttpRequest<String> leader, HttpResponse<String> response) {
+        if (leader instanceof SearchingWordRequest page && page.parsedWord != null) {
+            responseHandler.accept(page.parsedWord);
+        } else if (leader instanceof SearchingWordRequest page && page.parsedMiss != null) {
+            missHandler.accept(page.parsedMiss);
+        } else if (response.statusCode() != 404) {
+            super.handleCoalesced(leader, response);
+        }
+    }
+
+    private void parse(String page) {
+        Word word;
+        try {
+            word = OxfordHtmlParser.parseWord(page);
+        } catch (NotAnEntryException e) {
+            parsedMiss = new LookupMiss(getHttpRequest().uri(), e.getKind(), e.getSuggestions());
+            missHandler.accept(parsedMiss);
+            return;
+        }
+        parsedWord = word;
         responseHandler.accept(word);
     }
 }
@@ -0,0 +1,136 @@
+package com.github.buzluk.d2anki.client.request;
+
+import com.github.buzluk.d2anki.exception.NotAnEntryException;
+import com.github.buzluk.d2anki.model.LookupMiss;
+import com.github.buzluk.d2anki.model.Word;
+import com.github.buzluk.d2anki.parser.OxfordHtmlParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Looks up a word like {@link SearchingWordRequest}, but parses the page while it downloads and closes the stream
+ * once the entry has been read, so the rest of the page is neither transferred nor kept in memory.
+ * <p>
+ * A body subscriber must not block, so the parse reads the stream on a virtual thread of its own, and the body only
+ * completes once the parse has. The exchange therefore lasts until the page is parsed: the client's permit, request
+ * timeout and latency sample cover the whole download, and a hedged copy wins on the full page, not its headers.
+ */
+public class StreamingWordRequest extends AsyncHttpRequest<StreamingWordRequest.Page> {
+
+    private static final Executor PARSER =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("StreamingWordRequest-Parser-", 1).factory());
+
+    /**
+     * What the page turned out to be: either {@code word} or {@code miss} is set.
+     */
+    public record Page(Word word, LookupMiss miss) {
+    }
+
+    private final Consumer<Word> responseHandler;
+    private final Consumer<LookupMiss> missHandler;
+
+    private StreamingWordRequest(String word, int homograph, Consumer<Word> responseHandler,
+                                 Consumer<LookupMiss> missHandler, int maxRetries) {
+        super(SearchingWordRequest.definitionRequest(word, homograph), maxRetries);
+        this.responseHandler = Objects.requireNonNull(responseHandler);
+        this.missHandler = Objects.requireNonNull(missHandler);
+    }
+
+    public static StreamingWordRequest forWord(String word, Consumer<Word> responseHandler) {
+        return forHomograph(word, 1, responseHandler, SearchingWordRequest.LOG_MISS);
+    }
+
+    /**
+     * @param missHandler receives suggestion and error pages served in place of the entry; these are not retried
+     */
+    public static StreamingWordRequest forHomograph(String word, int homograph, Consumer<Word> responseHandler,
+                                                    Consumer<LookupMiss> missHandler) {
+        return new StreamingWordRequest(word, homograph, responseHandler, missHandler, 5);
+    }
+
+    /**
+     * Requests coalesced with this one are handled with the same response, so the body is parsed once for all of
+     * them. Bodies of other statuses are never handled and are closed right away.
+     */
+    @Override
+    public HttpResponse.BodyHandler<Page> getBodyHandler() {
+        return responseInfo -> {
+            HttpResponse.BodySubscriber<InputStream> stream = HttpResponse.BodySubscribers.ofInputStream();
+            return new HttpResponse.BodySubscriber<>() {
+                @Override
+                public CompletionStage<Page> getBody() {
+                    if (responseInfo.statusCode() != 200) {
+                        return stream.getBody().thenApply(StreamingWordRequest::discard);
+                    }
+                    return stream.getBody().thenApplyAsync(body -> parse(responseInfo, body), PARSER);
+                }
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    stream.onSubscribe(subscription);
+                }
+
+                @Override
+                public void onNext(List<ByteBuffer> item) {
+                    stream.onNext(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    stream.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    stream.onComplete();
+                }
+            };
+        };
+    }
+
+    private static Page discard(InputStream body) {
+        try (InputStream _ = body) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Page parse(HttpResponse.ResponseInfo responseInfo, InputStream body) {
+        try (InputStream raw = body) {
+            return new Page(OxfordHtmlParser.parseWord(DecompressingBodyHandler.decode(raw, responseInfo),
+                    StandardCharsets.UTF_8), null);
+        } catch (NotAnEntryException e) {
+            return new Page(null, new LookupMiss(getHttpRequest().uri(), e.getKind(), e.getSuggestions()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean isHedgeable() {
+        return true;
+    }
+
+    @Override
+    public void handleHttpResponse(HttpResponse<Page> response) {
+        Page page = response.body();
+        if (page.miss() != null) {
+            missHandler.accept(page.miss());
+        } else {
+            responseHandler.accept(page.word());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.buzluk.d2anki.client.request;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+
+/**
+ * The cache validators a server sent with a response. Sending them back lets the server answer with a bodiless
+ * {@code 304 Not Modified} when the content has not changed.
+ *
+ * @param etag         the {@code ETag} header, or {@code null}
+ * @param lastModified the {@code Last-Modified} header, or {@code null}
+ */
+public record Validators(String etag, String lastModified) {
+
+    public static final Validators NONE = new Validators(null, null);
+
+    public static Validators from(HttpHeaders headers) {
+        return new Validators(
+                headers.firstValue("ETag").orElse(null),
+                headers.firstValue("Last-Modified").orElse(null));
+    }
+
+    public boolean isEmpty() {
+        return etag == null && lastModified == null;
+    }
+
+    /**
+     * A copy of the request that only asks for the body if it differs from the one these validators came with.
+     */
+    public HttpRequest conditional(HttpRequest request) {
+        if (isEmpty()) {
+            return request;
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (_, _) -> true);
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+        return builder.build();
+    }
+}
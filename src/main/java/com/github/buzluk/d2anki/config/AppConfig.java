@@ -1,21 +1,56 @@
 package com.github.buzluk.d2anki.config;
 
+import com.github.buzluk.d2anki.client.AimdConcurrencyLimiter;
+import com.github.buzluk.d2anki.client.ClientConfig;
+import com.github.buzluk.d2anki.client.ExecutionMode;
+
+import java.net.URI;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 
 public record AppConfig(
         Path mediaOutputDir,
         Path outputFilePath,
         Path failedLogFilePath,
-        String defaultInputFile
+        Path suggestionsFilePath,
+        String defaultInputFile,
+        ClientConfig clientConfig,
+        List<URI> warmUpUris,
+        boolean streamingParse,
+        int maxHomographs,
+        Path htmlCacheDir,
+        Duration htmlCacheTtl,
+        Path audioValidatorsFile,
+        Path wordStoreFile,
+        Path aliasFile
 ) {
 
+    public static final Path NO_HTML_CACHE = null;
+    public static final Path NO_AUDIO_VALIDATORS = null;
+    public static final Path NO_WORD_STORE = null;
+    public static final Path NO_ALIASES = null;
+
     public static AppConfig defaults() {
         return new AppConfig(
                 Path.of("collection.media"),
                 Path.of("output.tsv"),
                 Path.of("failed_request.txt"),
-                "words.txt"
+                Path.of("suggestions.txt"),
+                "words.txt",
+                ClientConfig.defaults().toBuilder()
+                        .executionMode(ExecutionMode.VIRTUAL)
+                        .limiterFactory(() -> new AimdConcurrencyLimiter(10, 1, 64))
+                        .maxQueuedRequests(1000)
+                        .build(),
+                List.of(URI.create("https://www.oxfordlearnersdictionaries.com/")),
+                false,
+                1,
+                Path.of("html-cache"),
+                Duration.ofDays(30),
+                Path.of("html-cache", "audio-validators.tsv"),
+                Path.of("html-cache", "words.bin"),
+                Path.of("html-cache", "aliases.tsv")
         );
     }
 }
-
@@ -0,0 +1,7 @@
+package com.github.buzluk.d2anki.exception;
+
+public class CacheException extends RuntimeException {
+    public CacheException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.buzluk.d2anki.exception;
+
+import com.github.buzluk.d2anki.model.PageKind;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class NotAnEntryException extends RuntimeException {
+    private final PageKind kind;
+    private final List<String> suggestions;
+
+    public NotAnEntryException(PageKind kind, List<String> suggestions) {
+        super("Page is not a dictionary entry but a " + kind + " page");
+        this.kind = kind;
+        this.suggestions = suggestions;
+    }
+}
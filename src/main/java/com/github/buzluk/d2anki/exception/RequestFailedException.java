@@ -0,0 +1,7 @@
+package com.github.buzluk.d2anki.exception;
+
+public class RequestFailedException extends RuntimeException {
+    public RequestFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -24,8 +24,8 @@ public class TsvExporter implements WordExporter {
         log.info("TSV generation started.");
         try (BufferedWriter writer = Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8)) {
             for (Word word : words) {
-                AnkiCard card = AnkiCard.fromWord(word);
-                writer.append(card.printAsTsvFormat()).append("\n");
+                AnkiCard.fromWord(word).appendTsvTo(writer);
+                writer.append('\n');
             }
             log.info("TSV generation completed. Output: {}", outputPath.toAbsolutePath());
         } catch (IOException e) {
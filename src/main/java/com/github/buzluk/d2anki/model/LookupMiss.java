@@ -0,0 +1,14 @@
+package com.github.buzluk.d2anki.model;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * A definition page that turned out not to contain an entry.
+ *
+ * @param suggestions the words a suggestion page offered instead, in page order
+ */
+public record LookupMiss(URI url,
+                         PageKind kind,
+                         List<String> suggestions) {
+}
@@ -0,0 +1,16 @@
+package com.github.buzluk.d2anki.model;
+
+public enum PageKind {
+    /**
+     * A dictionary entry for the looked-up word.
+     */
+    ENTRY,
+    /**
+     * A "did you mean" page listing similar words, served instead of an entry.
+     */
+    SUGGESTION,
+    /**
+     * Any other page, e.g. an error or block page served with a 200.
+     */
+    ERROR
+}
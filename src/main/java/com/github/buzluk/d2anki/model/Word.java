@@ -1,9 +1,42 @@
 package com.github.buzluk.d2anki.model;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public record Word(String name,
                    String category,
                    List<Pronunciation> pronunciations,
                    List<Meaning> meanings) {
+
+    /**
+     * Combines the numbered entries of one headword, e.g. {@code lead} the verb and {@code lead} the noun, into a
+     * single word. The name is taken from the first entry, the categories are joined in entry order, and the
+     * pronunciations and meanings of all entries are kept, without repeating identical pronunciations.
+     */
+    public static Word merge(List<Word> homographs) {
+        if (homographs.size() == 1) {
+            return homographs.getFirst();
+        }
+        String category = homographs.stream()
+                .map(Word::category)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.joining(", "));
+        Set<Pronunciation> pronunciations = new LinkedHashSet<>();
+        List<Meaning> meanings = new ArrayList<>();
+        for (Word homograph : homographs) {
+            if (homograph.pronunciations() != null) {
+                pronunciations.addAll(homograph.pronunciations());
+            }
+            if (homograph.meanings() != null) {
+                meanings.addAll(homograph.meanings());
+            }
+        }
+        return new Word(homographs.getFirst().name(), category.isEmpty() ? null : category,
+                new ArrayList<>(pronunciations), meanings);
+    }
 }
@@ -1,160 +1,310 @@
 package com.github.buzluk.d2anki.parser;
 
+import com.github.buzluk.d2anki.exception.NotAnEntryException;
 import com.github.buzluk.d2anki.model.Accent;
 import com.github.buzluk.d2anki.model.Meaning;
+import com.github.buzluk.d2anki.model.PageKind;
 import com.github.buzluk.d2anki.model.Pronunciation;
 import com.github.buzluk.d2anki.model.Word;
 import lombok.extern.slf4j.Slf4j;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import org.jsoup.nodes.Node;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+import org.jsoup.select.QueryParser;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
+/**
+ * Extracts a {@link Word} from an entry page in a single walk over the entry subtree. Every query is compiled once
+ * and evaluated against the element it would have been run on as a {@code select} call, so the result is the same
+ * as selecting each piece separately: the first match in document order wins, and {@code >} queries only match
+ * children of that element.
+ */
 @Slf4j
 public class OxfordHtmlParser {
-    private static final String TOP_CONTENT_CSS_QUERY = "div.top-container > div.top-g > div.webtop";
-    private static final String PHONETICS_CSS_QUERY = "> span.phonetics";
     private static final String MAIN_CONTENT_CSS_QUERY = "div#main-container > div#entryContent > div.entry";
+    private static final Evaluator MAIN_CONTENT = QueryParser.parse(MAIN_CONTENT_CSS_QUERY);
+    private static final Evaluator ENTRY_CONTENT = QueryParser.parse("div#entryContent");
+    private static final Evaluator TOP_CONTENT = QueryParser.parse("div.top-container > div.top-g > div.webtop");
+    private static final Evaluator PHONETICS = QueryParser.parse("> span.phonetics");
+    private static final Evaluator HEADWORD = QueryParser.parse("h1.headword");
+    private static final Evaluator POS = QueryParser.parse("span.pos");
+    private static final Evaluator AMERICAN_PHONS = QueryParser.parse("div.phons_n_am");
+    private static final Evaluator BRITISH_PHONS = QueryParser.parse("div.phons_br");
+    private static final Evaluator PHON = QueryParser.parse("> span.phon");
+    private static final Evaluator AUDIO_SRC = QueryParser.parse("> div[data-src-mp3]");
+    private static final Evaluator SINGLE_SENSE = QueryParser.parse("div.entry > ol.sense_single  li.sense");
+    private static final Evaluator MULTIPLE_SENSE = QueryParser.parse("div.entry > ol.senses_multiple li.sense");
+    private static final Evaluator DEFINITION = QueryParser.parse("span.def");
+    private static final Evaluator EXAMPLES = QueryParser.parse("> ul.examples");
 
     private final Element mainContent;
-    private final Element topContent;
-    private final Element phonetics;
+    private Element topContent;
+    private Element headword;
+    private Element pos;
+    private Element phonetics;
+    private boolean inTopContent;
+    private boolean inPhonetics;
+    private final PhoneticsBlock american = new PhoneticsBlock(AMERICAN_PHONS, "div.phons_n_am");
+    private final PhoneticsBlock british = new PhoneticsBlock(BRITISH_PHONS, "div.phons_br");
+    private Sense singleSense;
+    private final List<Sense> multipleSenses = new ArrayList<>();
+    private final Deque<Sense> openSenses = new ArrayDeque<>();
 
     OxfordHtmlParser(String htmlContent) {
-        Document doc = org.jsoup.Jsoup.parse(htmlContent);
-        Element body = doc.body();
-        this.mainContent = body.selectFirst(MAIN_CONTENT_CSS_QUERY);
-        this.topContent = selectFirstSafely(this.mainContent, TOP_CONTENT_CSS_QUERY);
-        this.phonetics = selectFirstSafely(this.topContent, PHONETICS_CSS_QUERY);
+        this(selectMainContent(org.jsoup.Jsoup.parse(htmlContent)));
     }
 
+    private OxfordHtmlParser(Element mainContent) {
+        this.mainContent = mainContent;
+    }
+
+    /**
+     * @throws NotAnEntryException if the page is a suggestion or error page, which is recognised without parsing it
+     */
     public static Word parseWord(String htmlContent) {
+        PageKind kind = PageClassifier.classify(htmlContent);
+        if (kind != PageKind.ENTRY) {
+            throw notAnEntry(kind, htmlContent);
+        }
         return new OxfordHtmlParser(htmlContent).parse();
     }
 
-    private Word parse() {
-        List<Pronunciation> pronunciations = new ArrayList<>();
-        pronunciations.addAll(parseAmericanPronunciation());
-        pronunciations.addAll(parseBritishPronunciation());
-        return new Word(getHeadWord(), getPos(), pronunciations, getMeanings());
+    /**
+     * Parses the page while it is being read and stops as soon as the entry has been closed. The input is closed
+     * at that point, so the rest of the page is never read.
+     *
+     * @throws NotAnEntryException if the page is a suggestion or error page, which is recognised from the start of
+     *                             the stream
+     */
+    public static Word parseWord(InputStream htmlContent, Charset charset) throws IOException {
+        try (InputStream in = new BufferedInputStream(htmlContent)) {
+            PageKind kind = PageClassifier.classify(in);
+            if (kind != PageKind.ENTRY) {
+                throw notAnEntry(kind, new String(in.readAllBytes(), charset));
+            }
+            return new OxfordHtmlParser(streamMainContent(new InputStreamReader(in, charset))).parse();
+        }
     }
 
-    private String getHeadWord() {
-        Element headword = selectFirstSafely(topContent, "h1.headword");
-        String result = textSafely(headword);
-        return result == null ? "" : result;
+    private static NotAnEntryException notAnEntry(PageKind kind, String htmlContent) {
+        List<String> suggestions = kind == PageKind.SUGGESTION
+                ? PageClassifier.suggestions(htmlContent)
+                : List.of();
+        return new NotAnEntryException(kind, suggestions);
     }
 
-    private String getPos() {
-        Element pos = selectFirstSafely(topContent, "span.pos");
-        String result = textSafely(pos);
-        return result == null ? "" : result;
+    private static Element selectMainContent(Document doc) {
+        return doc.body().selectFirst(MAIN_CONTENT);
     }
 
-    private List<Pronunciation> parseAmericanPronunciation() {
-        List<String> amPhon = getPhon("div.phons_n_am");
-        List<String> amAudioSrc = getAudioSrc("div.phons_n_am");
-        List<Pronunciation> result = new ArrayList<>();
-        for (int i = 0; i < amPhon.size(); i++) {
-            String phonetic = amPhon.get(i);
-            String soundSrc = amAudioSrc.get(i);
-            result.add(new Pronunciation(Accent.US, phonetic, soundSrc));
+    /**
+     * Elements are handed out as they close. Everything outside the entry container is dropped right away, so the
+     * only subtree that is kept in memory is the entry itself.
+     */
+    static Element streamMainContent(Reader reader) throws IOException {
+        try (StreamParser streamer = new StreamParser(Parser.htmlParser()).parse(reader, "")) {
+            Iterator<Element> elements = streamer.iterator();
+            while (elements.hasNext()) {
+                Element element = elements.next();
+                if (element.is(MAIN_CONTENT)) {
+                    streamer.stop();
+                    return element;
+                }
+                if (element.closest(ENTRY_CONTENT) == null) {
+                    element.remove();
+                }
+            }
+            return null;
         }
-        return result;
     }
 
-    private List<Pronunciation> parseBritishPronunciation() {
-        List<String> brPhon = getPhon("div.phons_br");
-        List<String> brAudioSrc = getAudioSrc("div.phons_br");
-        List<Pronunciation> result = new ArrayList<>();
-        for (int i = 0; i < brPhon.size(); i++) {
-            String phonetic = brPhon.get(i);
-            String soundSrc = brAudioSrc.get(i);
-            result.add(new Pronunciation(Accent.UK, phonetic, soundSrc));
+    private Word parse() {
+        if (mainContent != null) {
+            NodeTraversor.traverse(new NodeVisitor() {
+                @Override
+                public void head(Node node, int depth) {
+                    enter(node);
+                }
+
+                @Override
+                public void tail(Node node, int depth) {
+                    leave(node);
+                }
+            }, mainContent);
         }
-        return result;
+        String headWord = textOrEmpty(headword);
+        List<Pronunciation> pronunciations = new ArrayList<>();
+        pronunciations.addAll(american.toPronunciations(Accent.US, headWord));
+        pronunciations.addAll(british.toPronunciations(Accent.UK, headWord));
+        return new Word(headWord, textOrEmpty(pos), pronunciations, getMeanings(headWord));
     }
 
-    private List<Meaning> getMeanings() {
-        Meaning singleMeaning = parseSingleMeaning();
-        if (singleMeaning != null) return List.of(singleMeaning);
-        List<Meaning> multiMeanings = parseMultiMeanings();
-        if (multiMeanings.isEmpty()) {
-            log.warn("No meanings found for for headWord='{}'", getHeadWord());
+    private void enter(Node node) {
+        if (!(node instanceof Element element)) {
+            return;
+        }
+        if (topContent == null && TOP_CONTENT.matches(mainContent, element)) {
+            topContent = element;
+            inTopContent = true;
+        }
+        if (inTopContent) {
+            visitTopContent(element);
+        }
+        if (singleSense == null && SINGLE_SENSE.matches(mainContent, element)) {
+            singleSense = new Sense(element);
+            openSenses.push(singleSense);
+        }
+        if (MULTIPLE_SENSE.matches(mainContent, element)) {
+            Sense sense = new Sense(element);
+            multipleSenses.add(sense);
+            openSenses.push(sense);
+        }
+        if (!openSenses.isEmpty()) {
+            visitSenses(element);
         }
-        return multiMeanings;
     }
 
-    private List<String> getAudioSrc(String phonsCssQuery) {
-        Element phonetic = selectFirstSafely(phonetics, phonsCssQuery);
-        Elements dataSrcMp3s = selectSafely(phonetic, "> div[data-src-mp3]");
-        if (dataSrcMp3s == null) {
-            log.warn("No audio sources found for headWord='{}' with CSS query='{}'", getHeadWord(), phonsCssQuery);
-            return Collections.emptyList();
+    private void leave(Node node) {
+        if (node == topContent) {
+            inTopContent = false;
         }
-
-        List<String> result = new ArrayList<>();
-        for (Element src : dataSrcMp3s) {
-            result.add(src.attr("data-src-mp3"));
+        if (node == phonetics) {
+            inPhonetics = false;
+        }
+        while (!openSenses.isEmpty() && openSenses.peek().element == node) {
+            openSenses.pop();
         }
-        return result.isEmpty() ? Collections.emptyList() : result;
     }
 
-    private List<String> getPhon(String phonsCssQuery) {
-        Element phonetic = selectFirstSafely(phonetics, phonsCssQuery);
-        Elements phons = selectSafely(phonetic, "> span.phon");
-        if (phons == null) {
-
-            return Collections.emptyList();
+    private void visitTopContent(Element element) {
+        if (headword == null && HEADWORD.matches(topContent, element)) {
+            headword = element;
+        }
+        if (pos == null && POS.matches(topContent, element)) {
+            pos = element;
+        }
+        if (phonetics == null && PHONETICS.matches(topContent, element)) {
+            phonetics = element;
+            inPhonetics = true;
+        }
+        if (inPhonetics) {
+            american.visit(phonetics, element);
+            british.visit(phonetics, element);
         }
-        List<String> result = phons.stream().map(Element::text).toList();
-        return result.isEmpty() ? Collections.emptyList() : result;
     }
 
-
-    private Meaning parseSingleMeaning() {
-        Element senseSingle = selectFirstSafely(mainContent, "div.entry > ol.sense_single  li.sense");
-        Element def = selectFirstSafely(senseSingle, "span.def");
-        if (def == null) return null;
-        String definition = textSafely(def);
-        Element examples = selectFirstSafely(senseSingle, "> ul.examples");
-        List<String> examplesAsText = getTextOfChildren(examples);
-        return new Meaning(definition, examplesAsText);
+    private void visitSenses(Element element) {
+        for (Sense sense : openSenses) {
+            if (sense.definition == null && DEFINITION.matches(sense.element, element)) {
+                sense.definition = element;
+            }
+            if (sense.examples == null && EXAMPLES.matches(sense.element, element)) {
+                sense.examples = element;
+            }
+        }
     }
 
-    private List<Meaning> parseMultiMeanings() {
+    private List<Meaning> getMeanings(String headWord) {
+        if (singleSense != null && singleSense.definition != null) {
+            return List.of(singleSense.toMeaning());
+        }
+        Objects.requireNonNull(mainContent, "Page has no entry content");
         List<Meaning> result = new ArrayList<>();
-        Elements sensesMultiple = selectSafely(mainContent, "div.entry > ol.senses_multiple li.sense");
-        for (Element sense : sensesMultiple) {
-            Element def = selectFirstSafely(sense, "span.def");
-            if (def == null) continue;
-            String definition = textSafely(def);
-            Element examples = selectFirstSafely(sense, "> ul.examples");
-            List<String> examplesAsText = getTextOfChildren(examples);
-            Meaning meaning = new Meaning(definition, examplesAsText);
-            result.add(meaning);
+        for (Sense sense : multipleSenses) {
+            if (sense.definition != null) {
+                result.add(sense.toMeaning());
+            }
         }
-        return result.isEmpty() ? Collections.emptyList() : result;
+        if (result.isEmpty()) {
+            log.warn("No meanings found for for headWord='{}'", headWord);
+            return Collections.emptyList();
+        }
+        return result;
     }
 
-    private List<String> getTextOfChildren(Element parent) {
+    private static List<String> getTextOfChildren(Element parent) {
         if (parent == null) return Collections.emptyList();
         List<String> result = parent.children().stream().map(Element::text).toList();
         return result.isEmpty() ? Collections.emptyList() : result;
     }
 
-    private Element selectFirstSafely(Element parent, String cssQuery) {
-        return parent == null ? null : parent.selectFirst(cssQuery);
+    private static String textOrEmpty(Element element) {
+        return element == null ? "" : element.text();
     }
 
-    private Elements selectSafely(Element parent, String cssQuery) {
-        return parent == null ? null : parent.select(cssQuery);
+    /**
+     * The first block of one accent inside the phonetics and its direct {@code span.phon} and audio children.
+     */
+    private static final class PhoneticsBlock {
+        private final Evaluator query;
+        private final String cssQuery;
+        private Element block;
+        private final List<Element> phons = new ArrayList<>();
+        private final List<Element> audioSources = new ArrayList<>();
+
+        private PhoneticsBlock(Evaluator query, String cssQuery) {
+            this.query = query;
+            this.cssQuery = cssQuery;
+        }
+
+        private void visit(Element phonetics, Element element) {
+            if (block == null) {
+                if (query.matches(phonetics, element)) {
+                    block = element;
+                }
+                return;
+            }
+            if (PHON.matches(block, element)) {
+                phons.add(element);
+            }
+            if (AUDIO_SRC.matches(block, element)) {
+                audioSources.add(element);
+            }
+        }
+
+        private List<Pronunciation> toPronunciations(Accent accent, String headWord) {
+            if (block == null) {
+                log.warn("No audio sources found for headWord='{}' with CSS query='{}'", headWord, cssQuery);
+            }
+            List<Pronunciation> result = new ArrayList<>();
+            for (int i = 0; i < phons.size(); i++) {
+                String phonetic = phons.get(i).text();
+                String soundSrc = audioSources.get(i).attr("data-src-mp3");
+                result.add(new Pronunciation(accent, phonetic, soundSrc));
+            }
+            return result;
+        }
     }
 
-    private String textSafely(Element parent) {
-        return parent == null ? null : parent.text();
+    private static final class Sense {
+        private final Element element;
+        private Element definition;
+        private Element examples;
+
+        private Sense(Element element) {
+            this.element = element;
+        }
+
+        private Meaning toMeaning() {
+            return new Meaning(definition.text(), getTextOfChildren(examples));
+        }
     }
 }
@@ -0,0 +1,119 @@
+package com.github.buzluk.d2anki.parser;
+
+import com.github.buzluk.d2anki.model.PageKind;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Tells entry pages from the suggestion and error pages the dictionary serves with a 200, by looking for marker
+ * attributes in the start of the page instead of parsing it. Whichever marker occurs first decides; a page with
+ * none of them in its first {@value #PREFIX_LIMIT} bytes is an error page.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PageClassifier {
+
+    static final int PREFIX_LIMIT = 256 * 1024;
+    private static final int CHUNK = 8 * 1024;
+
+    private record Marker(String text, byte[] bytes, PageKind kind) {
+        Marker(String text, PageKind kind) {
+            this(text, text.getBytes(StandardCharsets.US_ASCII), kind);
+        }
+    }
+
+    private static final List<Marker> MARKERS = List.of(
+            new Marker("id=\"entryContent\"", PageKind.ENTRY),
+            new Marker("id=\"didyoumean\"", PageKind.SUGGESTION),
+            new Marker("class=\"did-you-mean\"", PageKind.SUGGESTION),
+            new Marker("class=\"result-list\"", PageKind.SUGGESTION));
+    private static final int LONGEST_MARKER = MARKERS.stream().mapToInt(marker -> marker.bytes().length).max().orElse(0);
+    private static final String SUGGESTION_LINKS = "#didyoumean a, .did-you-mean a, ul.result-list a";
+
+    /**
+     * Looks at the first {@value #PREFIX_LIMIT} characters only, so an error page costs no more than the start of
+     * an entry page.
+     */
+    public static PageKind classify(String html) {
+        int limit = Math.min(html.length(), PREFIX_LIMIT);
+        for (int i = 0; i < limit; i++) {
+            for (Marker marker : MARKERS) {
+                String text = marker.text();
+                if (i + text.length() <= limit && html.startsWith(text, i)) {
+                    return marker.kind();
+                }
+            }
+        }
+        return PageKind.ERROR;
+    }
+
+    /**
+     * Reads the start of the page in chunks until a marker turns up, then rewinds the stream so the page can be
+     * parsed from the beginning.
+     *
+     * @param in must support {@link InputStream#mark}
+     */
+    public static PageKind classify(InputStream in) throws IOException {
+        in.mark(PREFIX_LIMIT);
+        try {
+            byte[] prefix = new byte[PREFIX_LIMIT];
+            int length = 0;
+            while (length < PREFIX_LIMIT) {
+                int read = in.read(prefix, length, Math.min(CHUNK, PREFIX_LIMIT - length));
+                if (read < 0) {
+                    break;
+                }
+                int from = Math.max(0, length - LONGEST_MARKER + 1);
+                length += read;
+                PageKind kind = firstMarker(prefix, from, length);
+                if (kind != null) {
+                    return kind;
+                }
+            }
+            return PageKind.ERROR;
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * The words a suggestion page offers, in page order. Only called for the rare suggestion page, so a full parse
+     * is fine here.
+     */
+    public static List<String> suggestions(String html) {
+        return Jsoup.parse(html).select(SUGGESTION_LINKS).stream()
+                .map(Element::text)
+                .filter(text -> !text.isBlank())
+                .distinct()
+                .toList();
+    }
+
+    private static PageKind firstMarker(byte[] bytes, int from, int length) {
+        for (int i = from; i < length; i++) {
+            for (Marker marker : MARKERS) {
+                if (matchesAt(bytes, i, length, marker.bytes())) {
+                    return marker.kind();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean matchesAt(byte[] bytes, int at, int length, byte[] marker) {
+        if (at + marker.length > length) {
+            return false;
+        }
+        for (int j = 0; j < marker.length; j++) {
+            if (bytes[at + j] != marker[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
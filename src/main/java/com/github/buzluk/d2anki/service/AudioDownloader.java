@@ -1,6 +1,8 @@
 package com.github.buzluk.d2anki.service;
 
+import com.github.buzluk.d2anki.cache.ValidatorStore;
 import com.github.buzluk.d2anki.client.AsyncHttpClient;
+import com.github.buzluk.d2anki.client.RequestGroup;
 import com.github.buzluk.d2anki.client.request.FileDownloadRequest;
 import com.github.buzluk.d2anki.model.Pronunciation;
 import com.github.buzluk.d2anki.model.Word;
@@ -8,6 +10,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
@@ -18,6 +21,14 @@ public class AudioDownloader {
 
     private final AsyncHttpClient client;
     private final Path mediaOutputDir;
+    /**
+     * Validators of files downloaded by earlier runs, or {@code null} to download every file again.
+     */
+    private final ValidatorStore validatorStore;
+
+    public AudioDownloader(AsyncHttpClient client, Path mediaOutputDir) {
+        this(client, mediaOutputDir, null);
+    }
 
     public void downloadAudioFiles(Collection<Word> words) {
         log.info("Queuing audio download requests...");
@@ -26,11 +37,12 @@ public class AudioDownloader {
             return;
         }
 
-        int count = queueDownloads(words);
+        RequestGroup group = client.newGroup();
+        int count = queueDownloads(group, words);
         log.info("Queued {} audio download requests.", count);
 
         log.info("Waiting for audio downloads to complete...");
-        client.waitForFinish();
+        group.await();
     }
 
     private boolean ensureDirectoryExists() {
@@ -43,11 +55,11 @@ public class AudioDownloader {
         }
     }
 
-    private int queueDownloads(Collection<Word> words) {
+    private int queueDownloads(RequestGroup group, Collection<Word> words) {
         int count = 0;
         for (Word word : words) {
             for (Pronunciation pronunciation : word.pronunciations()) {
-                if (queueSingleDownload(word, pronunciation)) {
+                if (queueSingleDownload(group, word, pronunciation)) {
                     count++;
                 }
             }
@@ -55,14 +67,17 @@ public class AudioDownloader {
         return count;
     }
 
-    private boolean queueSingleDownload(Word word, Pronunciation pronunciation) {
+    private boolean queueSingleDownload(RequestGroup group, Word word, Pronunciation pronunciation) {
         String src = pronunciation.soundSrc();
         if (src == null || src.isEmpty()) {
             return false;
         }
 
         try {
-            client.sendRequest(FileDownloadRequest.of(src, mediaOutputDir));
+            group.send(validatorStore == null
+                    ? FileDownloadRequest.of(src, mediaOutputDir)
+                    : FileDownloadRequest.of(src, mediaOutputDir, validatorStore.get(URI.create(src)),
+                    validatorStore::put));
             return true;
         } catch (IllegalArgumentException e) {
             log.warn("Skipping invalid audio URL for word '{}': {}", word.name(), e.getMessage());
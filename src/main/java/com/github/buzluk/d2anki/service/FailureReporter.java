@@ -1,6 +1,7 @@
 package com.github.buzluk.d2anki.service;
 
 import com.github.buzluk.d2anki.client.request.AsyncHttpRequest;
+import com.github.buzluk.d2anki.model.LookupMiss;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
@@ -9,16 +10,19 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 public class FailureReporter {
 
     private final Path logFilePath;
+    private final Path suggestionsFilePath;
 
-    public FailureReporter(Path logFilePath) {
+    public FailureReporter(Path logFilePath, Path suggestionsFilePath) {
         this.logFilePath = logFilePath;
+        this.suggestionsFilePath = suggestionsFilePath;
     }
-    
+
     public void reportFailures(Collection<AsyncHttpRequest<?>> failedRequests) {
         if (failedRequests.isEmpty()) {
             log.info("No failed requests to report.");
@@ -36,6 +40,31 @@ public class FailureReporter {
         writeFailureLog(failedUrls);
     }
 
+    /**
+     * Writes one line per input that led to a suggestion or error page instead of an entry:
+     * {@code word \t SUGGESTION|ERROR \t suggestions, comma separated}.
+     */
+    public void reportMisses(Map<String, LookupMiss> misses) {
+        if (misses.isEmpty()) {
+            return;
+        }
+
+        log.warn("{} words have no dictionary entry.", misses.size());
+
+        List<String> lines = misses.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(miss -> miss.getKey() + "\t" + miss.getValue().kind() + "\t"
+                        + String.join(", ", miss.getValue().suggestions()))
+                .toList();
+
+        try {
+            Files.write(suggestionsFilePath, lines);
+            log.info("Words without an entry logged to: {}", suggestionsFilePath.toAbsolutePath());
+        } catch (IOException e) {
+            log.error("Failed to write suggestions to: {}", suggestionsFilePath, e);
+        }
+    }
+
     private void writeFailureLog(List<String> failedUrls) {
         try {
             Files.write(logFilePath, failedUrls);
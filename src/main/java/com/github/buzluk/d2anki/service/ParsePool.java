@@ -0,0 +1,55 @@
+package com.github.buzluk.d2anki.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Parses cached pages next to the thread reading the input. {@link #submit} waits while twice as many tasks as
+ * there are threads are queued or running, so pages are read and parsed as the input goes by instead of piling up
+ * in memory.
+ */
+@Slf4j
+final class ParsePool implements AutoCloseable {
+
+    private final ExecutorService pool;
+    private final Semaphore slots;
+
+    ParsePool(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.pool = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().daemon().name("WordFetcher-Parser-", 1).factory());
+        this.slots = new Semaphore(2 * threads);
+    }
+
+    void submit(Runnable task) {
+        slots.acquireUninterruptibly();
+        try {
+            pool.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Parse task failed: {}", e.toString());
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for every submitted task to finish.
+     */
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
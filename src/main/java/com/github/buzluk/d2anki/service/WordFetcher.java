@@ -1,47 +1,347 @@
 package com.github.buzluk.d2anki.service;
 
+import com.github.buzluk.d2anki.cache.AliasMap;
+import com.github.buzluk.d2anki.cache.CacheEntry;
+import com.github.buzluk.d2anki.cache.HtmlCache;
+import com.github.buzluk.d2anki.cache.WordStore;
 import com.github.buzluk.d2anki.client.AsyncHttpClient;
+import com.github.buzluk.d2anki.client.RequestGroup;
+import com.github.buzluk.d2anki.client.request.AsyncHttpRequest;
+import com.github.buzluk.d2anki.client.request.PageSink;
 import com.github.buzluk.d2anki.client.request.SearchingWordRequest;
+import com.github.buzluk.d2anki.client.request.StreamingWordRequest;
+import com.github.buzluk.d2anki.exception.NotAnEntryException;
 import com.github.buzluk.d2anki.exception.WordFetchException;
+import com.github.buzluk.d2anki.model.LookupMiss;
 import com.github.buzluk.d2anki.model.Word;
+import com.github.buzluk.d2anki.parser.OxfordHtmlParser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 @Slf4j
 @RequiredArgsConstructor
 public class WordFetcher {
+    private static final int PARSE_THREADS = Runtime.getRuntime().availableProcessors();
 
     private final AsyncHttpClient client;
+    /**
+     * Whether to parse pages while they download. Only takes effect without the HTML cache, which needs the whole
+     * page.
+     */
+    private final boolean streamingParse;
+    /**
+     * Up to how many numbered entries ({@code _1}, {@code _2}, ...) to look up per word. They are requested together,
+     * so a word takes no longer than its slowest entry, and the ones found are merged into one word. An entry the
+     * HTML cache knows to be missing is not requested, and neither are the ones after it.
+     */
+    private final int maxHomographs;
+    /**
+     * Raw pages from earlier runs, or {@code null} to always go to the network.
+     */
+    private final HtmlCache htmlCache;
+    /**
+     * Words parsed by earlier runs, or {@code null} to parse every word again.
+     */
+    private final WordStore wordStore;
+    /**
+     * Where earlier requests were redirected to, or {@code null} to fetch every input separately.
+     */
+    private final AliasMap aliasMap;
+    /**
+     * Inputs that led to a suggestion or error page instead of an entry, by input word.
+     */
+    private final Map<String, LookupMiss> misses = new ConcurrentHashMap<>();
 
+    public WordFetcher(AsyncHttpClient client, boolean streamingParse) {
+        this(client, streamingParse, 1, null, null, null);
+    }
+
+    /**
+     * Reads the input line by line. Words found in the word store are taken as they are, cached pages are parsed on
+     * the parse pool as they come up, and everything else is sent; only the parsed words are kept until the end.
+     */
     public Collection<Word> fetchFromFile(Path inputFilePath) {
         Collection<Word> fetchedWords = new ConcurrentLinkedQueue<>();
+        RequestGroup group = aliasMap == null ? client.newGroup() : client.newGroup(this::recordAlias);
+
+        AtomicInteger stored = new AtomicInteger();
+        AtomicInteger cached = new AtomicInteger();
+        AtomicInteger knownMissing = new AtomicInteger();
+        List<Homographs> lookups = new ArrayList<>();
+        try (ParsePool parsePool = new ParsePool(PARSE_THREADS);
+             Stream<String> words = collapseAliases(readWords(inputFilePath))) {
+            words.forEach(word -> {
+                Optional<Word> storedWord = wordStore == null ? Optional.empty() : wordStore.get(word);
+                if (storedWord.isPresent()) {
+                    fetchedWords.add(storedWord.get());
+                    stored.incrementAndGet();
+                    return;
+                }
+                Homographs homographs = new Homographs(word, maxHomographs);
+                lookups.add(homographs);
+                for (int homograph = 1; homograph <= maxHomographs; homograph++) {
+                    int number = homograph;
+                    Consumer<Word> entry = homographs.entry(homograph);
+                    URI url = SearchingWordRequest.definitionUri(word, homograph);
+                    if (htmlCache != null && htmlCache.isKnownMissing(url)) {
+                        // Entries are numbered without gaps, so none of the later ones exist either.
+                        knownMissing.incrementAndGet();
+                        break;
+                    }
+                    if (htmlCache != null && htmlCache.isFresh(url)) {
+                        cached.incrementAndGet();
+                        parsePool.submit(() -> {
+                            Optional<String> page = htmlCache.get(url);
+                            if (page.isEmpty() || !parseCached(word, number, page.get(), entry)) {
+                                // Revalidating would only confirm the page that just failed.
+                                group.send(SearchingWordRequest.forHomograph(word, number, entry,
+                                        missHandler(word, number), htmlCache));
+                            }
+                        });
+                    } else {
+                        group.send(lookup(word, homograph, entry));
+                    }
+                }
+            });
+        }
+
+        log.info("Waiting for {} definitions, {} served from stored words, {} from cached pages and {} known to be "
+                + "missing...", group.size(), stored.get(), cached.get(), knownMissing.get());
+        group.await();
+
+        for (Homographs homographs : lookups) {
+            homographs.merged().ifPresent(storing(homographs.word(), fetchedWords::add));
+        }
+        return withoutDuplicates(fetchedWords);
+    }
+
+    /**
+     * Rebuilds words from cached pages alone, whatever their age. Words that were never cached are logged and
+     * left out; nothing is fetched. Stored words are ignored, since reparsing is how a parser fix reaches them.
+     */
+    public Collection<Word> reparseFromFile(Path inputFilePath) {
+        if (htmlCache == null) {
+            throw new WordFetchException("Reparsing requires the HTML cache to be enabled", null);
+        }
+        Collection<Word> parsedWords = new ConcurrentLinkedQueue<>();
+        Collection<String> missing = new ConcurrentLinkedQueue<>();
+        AtomicInteger total = new AtomicInteger();
+
+        try (ParsePool parsePool = new ParsePool(PARSE_THREADS);
+             Stream<String> words = collapseAliases(readWords(inputFilePath))) {
+            words.forEach(word -> {
+                total.incrementAndGet();
+                parsePool.submit(() -> reparse(word, parsedWords, missing));
+            });
+        }
+
+        if (!missing.isEmpty()) {
+            log.warn("{} words are not in the cache and were skipped: {}", missing.size(), missing);
+        }
+        log.info("Reparsed {} of {} words from cache.", parsedWords.size(), total.get());
+        return withoutDuplicates(parsedWords);
+    }
+
+    private void reparse(String word, Collection<Word> parsedWords, Collection<String> missing) {
+        List<Word> entries = new ArrayList<>();
+        for (int homograph = 1; homograph <= maxHomographs; homograph++) {
+            Optional<String> html = htmlCache.getIgnoringTtl(SearchingWordRequest.definitionUri(word, homograph));
+            int found = entries.size();
+            if (html.isEmpty() || !parseCached(word, homograph, html.get(), entries::add)
+                    || entries.size() == found) {
+                break;
+            }
+        }
+        if (entries.isEmpty()) {
+            if (!misses.containsKey(word)) {
+                missing.add(word);
+            }
+        } else {
+            storing(word, parsedWords::add).accept(Word.merge(entries));
+        }
+    }
+
+    /**
+     * Keeps the first of the inputs that were redirected to the same entry before, e.g. {@code mouse} of
+     * {@code mouse} and {@code mice}.
+     */
+    private Stream<String> collapseAliases(Stream<String> words) {
+        if (aliasMap == null) {
+            return words;
+        }
+        Map<URI, String> firstByEntry = new HashMap<>();
+        AtomicInteger skipped = new AtomicInteger();
+        return words
+                .filter(word -> {
+                    URI entry = aliasMap.resolve(SearchingWordRequest.definitionUri(word));
+                    String first = firstByEntry.putIfAbsent(entry, word);
+                    if (first == null) {
+                        return true;
+                    }
+                    log.debug("'{}' leads to the same entry as '{}'. Skipping it.", word, first);
+                    skipped.incrementAndGet();
+                    return false;
+                })
+                .onClose(() -> {
+                    if (skipped.get() > 0) {
+                        log.info("Skipped {} words that lead to the same entry as another input.", skipped.get());
+                    }
+                });
+    }
+
+    /**
+     * Remembers where the dictionary redirected a lookup, so the next run can collapse inputs that lead to the same
+     * entry before fetching them.
+     */
+    private void recordAlias(AsyncHttpRequest<?> request, HttpResponse<?> response) {
+        if (response.statusCode() == 200) {
+            aliasMap.record(request.getHttpRequest().uri(), response.uri());
+        }
+    }
+
+    /**
+     * Inputs first seen in this run may still lead to the same entry; their words are identical.
+     */
+    private static Collection<Word> withoutDuplicates(Collection<Word> words) {
+        Set<Word> distinct = new LinkedHashSet<>(words);
+        if (distinct.size() < words.size()) {
+            log.info("Removed {} duplicate words.", words.size() - distinct.size());
+        }
+        return distinct;
+    }
 
+    /**
+     * The distinct words of the input, read lazily; the caller closes the stream.
+     */
+    private static Stream<String> readWords(Path inputFilePath) {
         log.info("Reading words from '{}'...", inputFilePath);
-        try (Stream<String> lines = Files.lines(inputFilePath, StandardCharsets.UTF_8)) {
-            lines
+        try {
+            return Files.lines(inputFilePath, StandardCharsets.UTF_8)
                     .filter(line -> !line.isBlank())
                     .map(String::trim)
-                    .distinct()
-                    .forEach(word -> client.sendRequest(
-                            SearchingWordRequest.forWord(word, fetchedWords::add)
-                    ));
+                    .distinct();
         } catch (IOException e) {
             throw new WordFetchException("Failed to read input file: " + inputFilePath, e);
         }
+    }
 
-        log.info("Waiting for definitions...");
-        client.waitForFinish();
+    /**
+     * Also keeps every newly parsed word in the word store, replacing what an older parser produced.
+     */
+    private Consumer<Word> storing(String lookedUp, Consumer<Word> handler) {
+        if (wordStore == null) {
+            return handler;
+        }
+        return word -> {
+            wordStore.put(lookedUp, word);
+            handler.accept(word);
+        };
+    }
 
-        return fetchedWords;
+    /**
+     * @return whether the page was handled, either as an entry or as a miss; {@code false} means it could not be
+     * parsed at all and should be fetched again
+     */
+    private boolean parseCached(String word, int homograph, String html, Consumer<Word> handler) {
+        Word parsed;
+        try {
+            parsed = OxfordHtmlParser.parseWord(html);
+        } catch (NotAnEntryException e) {
+            missHandler(word, homograph).accept(new LookupMiss(
+                    SearchingWordRequest.definitionUri(word, homograph), e.getKind(), e.getSuggestions()));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not parse cached page for '{}': {}", word, e.toString());
+            return false;
+        }
+        handler.accept(parsed);
+        return true;
     }
-    
-}
 
+    /**
+     * Only the first entry's page says anything about the input; a later numbered entry that does not exist is
+     * expected for most words.
+     */
+    private Consumer<LookupMiss> missHandler(String word, int homograph) {
+        if (homograph > 1) {
+            return miss -> log.debug("No entry {} for '{}': got a {} page.", homograph, word, miss.kind());
+        }
+        return miss -> {
+            log.warn("No entry for '{}': got a {} page.", word, miss.kind());
+            misses.put(word, miss);
+        };
+    }
+
+    public Map<String, LookupMiss> getMisses() {
+        return Map.copyOf(misses);
+    }
+
+    private AsyncHttpRequest<?> lookup(String word, int homograph, Consumer<Word> handler) {
+        Consumer<LookupMiss> missHandler = missHandler(word, homograph);
+        if (htmlCache != null) {
+            // The cache needs the whole page, which the streaming parser never holds.
+            return htmlCache.entry(SearchingWordRequest.definitionUri(word, homograph))
+                    .map(CacheEntry::validators)
+                    .<AsyncHttpRequest<?>>map(validators ->
+                            SearchingWordRequest.revalidate(word, homograph, handler, missHandler, htmlCache,
+                                    validators))
+                    .orElseGet(() -> SearchingWordRequest.forHomograph(word, homograph, handler, missHandler,
+                            htmlCache));
+        }
+        return streamingParse
+                ? StreamingWordRequest.forHomograph(word, homograph, handler, missHandler)
+                : SearchingWordRequest.forHomograph(word, homograph, handler, missHandler, PageSink.NONE);
+    }
+
+    /**
+     * Collects the numbered entries of one looked-up word as they arrive. The dictionary numbers entries without
+     * gaps, so anything after the first missing entry, e.g. after a 404 for {@code _2}, is ignored.
+     */
+    private static final class Homographs {
+        private final String word;
+        private final AtomicReferenceArray<Word> entries;
+
+        Homographs(String word, int count) {
+            this.word = word;
+            this.entries = new AtomicReferenceArray<>(count);
+        }
+
+        String word() {
+            return word;
+        }
+
+        Consumer<Word> entry(int homograph) {
+            return entry -> entries.set(homograph - 1, entry);
+        }
+
+        Optional<Word> merged() {
+            List<Word> found = new ArrayList<>();
+            for (int i = 0; i < entries.length() && entries.get(i) != null; i++) {
+                found.add(entries.get(i));
+            }
+            return found.isEmpty() ? Optional.empty() : Optional.of(Word.merge(found));
+        }
+    }
+
+}
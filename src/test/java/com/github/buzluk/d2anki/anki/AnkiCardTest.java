@@ -6,6 +6,8 @@ import com.github.buzluk.d2anki.model.Pronunciation;
 import com.github.buzluk.d2anki.model.Word;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Collections;
 import java.util.List;
 
@@ -59,6 +61,18 @@ class AnkiCardTest {
         assertEquals(3, parts.length);
     }
 
+    @Test
+    void shouldWriteSameTsvLineAsJsoupRenderers() throws IOException {
+        AnkiCard card = AnkiCard.fromWord(createTestWord());
+        StringWriter writer = new StringWriter();
+
+        card.appendTsvTo(writer);
+
+        String expected = card.getFrontAsHtml() + "\t" + card.getBackAsHtml() + "\t" + card.getTag();
+        assertEquals(expected, writer.toString());
+        assertEquals(expected, card.printAsTsvFormat());
+    }
+
     @Test
     void shouldHandleWordWithEmptyCategory() {
         Word word = new Word("test", "", Collections.emptyList(), Collections.emptyList());
@@ -0,0 +1,106 @@
+package com.github.buzluk.d2anki.anki.render;
+
+import com.github.buzluk.d2anki.model.Accent;
+import com.github.buzluk.d2anki.model.Meaning;
+import com.github.buzluk.d2anki.model.Pronunciation;
+import com.github.buzluk.d2anki.model.Word;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCardRendererTest {
+
+    @Test
+    void shouldMatchJsoupRenderersForPlainWord() throws IOException {
+        assertSameAsJsoup(createTestWord());
+    }
+
+    @Test
+    void shouldMatchJsoupRenderersForEmptyAndMissingFields() throws IOException {
+        assertSameAsJsoup(new Word("test", "noun", Collections.emptyList(), Collections.emptyList()));
+        assertSameAsJsoup(new Word(null, null, Collections.emptyList(),
+                List.of(new Meaning("no examples", null), new Meaning("empty examples", List.of()))));
+        assertSameAsJsoup(new Word("test", "noun",
+                List.of(new Pronunciation(Accent.UK, null, "https://example.com/test_uk.mp3")),
+                Collections.emptyList()));
+    }
+
+    @Test
+    void shouldMatchJsoupEscaping() throws IOException {
+        String awkward = "fish & chips <b>bold</b> \"quoted\" 'single' a\u00A0b  two  spaces\ttab\nline\r"
+                + "\u0001\u001F\u007F \u00E9 \u026A \uD83D\uDE00 \uD800 lone \uDC00 \uD836\uDC00";
+        List<Pronunciation> pronunciations = List.of(
+                new Pronunciation(Accent.US, awkward, "https://example.com/a&b<c>.mp3"),
+                new Pronunciation(Accent.UK, "/ɪ/", "https://example.com/uk.mp3"));
+        List<Meaning> meanings = List.of(new Meaning(awkward, List.of(awkward, "")));
+        assertSameAsJsoup(new Word(awkward, awkward, pronunciations, meanings));
+    }
+
+    @Test
+    void shouldWriteLargeCardsThroughWriterInChunks() throws IOException {
+        List<Meaning> meanings = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            meanings.add(new Meaning("definition number " + i + " & more", List.of("example <" + i + ">")));
+        }
+        Word word = new Word("long", "noun", Collections.emptyList(), meanings);
+        StringWriter writer = new StringWriter();
+
+        StreamingCardRenderer.renderBack(word, writer);
+
+        assertEquals(CardBackRenderer.create(word).renderAsHtml(), writer.toString());
+    }
+
+    @Test
+    void shouldReuseBufferAcrossCards() throws IOException {
+        StringBuilder out = new StringBuilder();
+
+        StreamingCardRenderer.renderFront(createTestWord(), out);
+        StreamingCardRenderer.renderFront(createTestWord(), out);
+
+        String single = CardFrontRenderer.create(createTestWord()).renderAsHtml();
+        assertEquals(single + single, out.toString());
+    }
+
+    @Test
+    void shouldRejectNullDefinition() {
+        Word word = new Word("test", "noun", Collections.emptyList(),
+                List.of(new Meaning(null, List.of("example"))));
+
+        assertThrows(NullPointerException.class, () -> StreamingCardRenderer.renderBack(word, new StringBuilder()));
+        assertThrows(NullPointerException.class, () -> StreamingCardRenderer.renderBack(
+                new Word("test", "noun", Collections.emptyList(),
+                        List.of(new Meaning("definition", Arrays.asList("example", null)))),
+                new StringBuilder()));
+    }
+
+    private static void assertSameAsJsoup(Word word) throws IOException {
+        StringBuilder front = new StringBuilder();
+        StringWriter back = new StringWriter();
+
+        StreamingCardRenderer.renderFront(word, front);
+        StreamingCardRenderer.renderBack(word, back);
+
+        assertEquals(CardFrontRenderer.create(word).renderAsHtml(), front.toString());
+        assertEquals(CardBackRenderer.create(word).renderAsHtml(), back.toString());
+    }
+
+    private Word createTestWord() {
+        List<Pronunciation> pronunciations = List.of(
+                new Pronunciation(Accent.US, "/dɪˈtekt/", "https://example.com/detect_us.mp3"),
+                new Pronunciation(Accent.UK, "/dɪˈtekt/", "https://example.com/detect_uk.mp3"),
+                new Pronunciation(Accent.UK, "/diːˈtekt/", "https://example.com/detect_uk_2.mp3")
+        );
+        List<Meaning> meanings = List.of(
+                new Meaning("to discover or notice something", List.of("The test detected a problem.", "Cancer can be cured if detected early.")),
+                new Meaning("to find something that is hard to see", null)
+        );
+        return new Word("detect", "verb", pronunciations, meanings);
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.buzluk.d2anki.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class AliasMapTest {
+
+    private static final URI MICE = URI.create("https://example.com/definition/english/mice_1");
+    private static final URI MOUSE = URI.create("https://example.com/definition/english/mouse_1");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldResolveUnknownUrlToItself() {
+        assertEquals(MOUSE, new AliasMap(dir.resolve("aliases.tsv")).resolve(MOUSE));
+    }
+
+    @Test
+    void shouldResolveRecordedRedirectAfterReload() {
+        Path file = dir.resolve("aliases.tsv");
+        new AliasMap(file).record(MICE, MOUSE);
+
+        AliasMap reloaded = new AliasMap(file);
+
+        assertEquals(MOUSE, reloaded.resolve(MICE));
+        assertEquals(1, reloaded.size());
+    }
+
+    @Test
+    void shouldNotStoreUrlsThatWereNotRedirected() {
+        Path file = dir.resolve("aliases.tsv");
+        AliasMap aliases = new AliasMap(file);
+
+        aliases.record(MOUSE, MOUSE);
+
+        assertEquals(0, aliases.size());
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void shouldSkipMalformedLines() throws IOException {
+        Path file = dir.resolve("aliases.tsv");
+        Files.writeString(file, "garbage\n" + MICE + "\t" + MOUSE + "\n");
+
+        assertEquals(MOUSE, new AliasMap(file).resolve(MICE));
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.buzluk.d2anki.cache;
+
+import com.github.buzluk.d2anki.client.request.Validators;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HtmlCacheTest {
+
+    private static final URI DETECT = URI.create("https://example.com/definition/english/detect_1");
+    private static final URI DETECTS = URI.create("https://example.com/definition/english/detects_1");
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    Path root;
+
+    private HtmlCache cacheAt(Instant now) {
+        return new HtmlCache(root, Duration.ofDays(30), Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    @Test
+    void shouldReturnStoredPage() {
+        HtmlCache cache = cacheAt(NOW);
+
+        cache.put(DETECT, "<html>detect ə</html>");
+
+        assertEquals(Optional.of("<html>detect ə</html>"), cache.get(DETECT));
+    }
+
+    @Test
+    void shouldMissUnknownUrl() {
+        assertTrue(cacheAt(NOW).get(DETECT).isEmpty());
+    }
+
+    @Test
+    void shouldExpirePagesOlderThanTtl() {
+        cacheAt(NOW).put(DETECT, "<html/>");
+
+        HtmlCache later = cacheAt(NOW.plus(Duration.ofDays(31)));
+
+        assertTrue(later.get(DETECT).isEmpty());
+        assertEquals(Optional.of("<html/>"), later.getIgnoringTtl(DETECT));
+    }
+
+    @Test
+    void shouldReloadIndexFromDisk() {
+        cacheAt(NOW).put(DETECT, "first");
+        cacheAt(NOW).put(DETECT, "second");
+
+        HtmlCache reopened = cacheAt(NOW);
+
+        assertEquals(1, reopened.size());
+        assertEquals(Optional.of("second"), reopened.get(DETECT));
+    }
+
+    @Test
+    void shouldStoreIdenticalPagesOnce() throws IOException {
+        HtmlCache cache = cacheAt(NOW);
+
+        cache.put(DETECT, "<html>same</html>");
+        cache.put(DETECTS, "<html>same</html>");
+
+        assertEquals(cache.entry(DETECT).orElseThrow().hash(), cache.entry(DETECTS).orElseThrow().hash());
+        try (Stream<Path> files = Files.walk(root.resolve("objects"))) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void shouldSkipMalformedIndexLines() throws IOException {
+        cacheAt(NOW).put(DETECT, "page");
+        Files.writeString(root.resolve("index.tsv"), "garbage\n", StandardOpenOption.APPEND);
+
+        assertEquals(Optional.of("page"), cacheAt(NOW).get(DETECT));
+    }
+
+    @Test
+    void shouldKeepValidatorsAcrossReload() {
+        Validators validators = new Validators("\"abc\"", "Wed, 01 Jan 2025 00:00:00 GMT");
+        cacheAt(NOW).fetched(DETECT, "page", validators);
+
+        assertEquals(validators, cacheAt(NOW).entry(DETECT).orElseThrow().validators());
+    }
+
+    @Test
+    void shouldRememberMissingPageAcrossReload() {
+        cacheAt(NOW).notFound(DETECT);
+
+        HtmlCache reloaded = cacheAt(NOW.plus(Duration.ofDays(1)));
+
+        assertTrue(reloaded.isKnownMissing(DETECT));
+        assertFalse(reloaded.isFresh(DETECT));
+        assertTrue(reloaded.get(DETECT).isEmpty());
+        assertTrue(reloaded.getIgnoringTtl(DETECT).isEmpty());
+    }
+
+    @Test
+    void shouldAskAgainOnceMissingPageIsStale() {
+        cacheAt(NOW).notFound(DETECT);
+
+        assertFalse(cacheAt(NOW.plus(Duration.ofDays(31))).isKnownMissing(DETECT));
+    }
+
+    @Test
+    void shouldReplaceMissingMarkerWithFetchedPage() {
+        cacheAt(NOW).notFound(DETECT);
+        cacheAt(NOW).put(DETECT, "page");
+
+        HtmlCache reloaded = cacheAt(NOW);
+
+        assertFalse(reloaded.isKnownMissing(DETECT));
+        assertEquals(Optional.of("page"), reloaded.get(DETECT));
+    }
+
+    @Test
+    void shouldRefreshStalePageWhenNotModified() {
+        cacheAt(NOW).fetched(DETECT, "page", new Validators("\"abc\"", null));
+        Instant later = NOW.plus(Duration.ofDays(31));
+
+        assertEquals(Optional.of("page"), cacheAt(later).notModified(DETECT));
+
+        assertEquals(Optional.of("page"), cacheAt(later).get(DETECT));
+    }
+}
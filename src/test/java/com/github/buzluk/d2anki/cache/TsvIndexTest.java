@@ -0,0 +1,90 @@
+package com.github.buzluk.d2anki.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TsvIndexTest {
+
+    private static final TsvIndex.Codec<String, Integer> CODEC = new TsvIndex.Codec<>() {
+        @Override
+        public Map.Entry<String, Integer> decode(String[] fields) {
+            if (fields.length != 2) {
+                throw new IllegalArgumentException("Expected 2 fields, got " + fields.length);
+            }
+            return Map.entry(fields[0], Integer.parseInt(fields[1]));
+        }
+
+        @Override
+        public List<String> encode(String key, Integer value) {
+            return List.of(key, value.toString());
+        }
+    };
+
+    @TempDir
+    Path dir;
+
+    private Path file() {
+        return dir.resolve("index.tsv");
+    }
+
+    @Test
+    void shouldKeepLastLineForKeyAfterReload() throws IOException {
+        TsvIndex<String, Integer> index = new TsvIndex<>(file(), "test", CODEC);
+        index.put("a", 1);
+        index.put("b", 2);
+        index.put("a", 3);
+
+        TsvIndex<String, Integer> reloaded = new TsvIndex<>(file(), "test", CODEC);
+
+        assertEquals(Optional.of(3), reloaded.get("a"));
+        assertEquals(Optional.of(2), reloaded.get("b"));
+        assertEquals(2, reloaded.size());
+    }
+
+    @Test
+    void shouldCompactOnLoadOnceHalfTheLinesAreStale() throws IOException {
+        TsvIndex<String, Integer> index = new TsvIndex<>(file(), "test", CODEC);
+        index.put("a", 1);
+        index.put("b", 1);
+        index.put("a", 2);
+        index.put("a", 3);
+
+        new TsvIndex<>(file(), "test", CODEC);
+
+        assertEquals(2, Files.readAllLines(file()).size());
+        TsvIndex<String, Integer> reloaded = new TsvIndex<>(file(), "test", CODEC);
+        assertEquals(Optional.of(3), reloaded.get("a"));
+        assertEquals(Optional.of(1), reloaded.get("b"));
+    }
+
+    @Test
+    void shouldLeaveFileAloneWhileMostLinesAreLive() throws IOException {
+        TsvIndex<String, Integer> index = new TsvIndex<>(file(), "test", CODEC);
+        index.put("a", 1);
+        index.put("b", 1);
+        index.put("a", 2);
+
+        new TsvIndex<>(file(), "test", CODEC);
+
+        assertEquals(3, Files.readAllLines(file()).size());
+    }
+
+    @Test
+    void shouldDropMalformedLinesWhenCompacting() throws IOException {
+        Files.writeString(file(), "garbage\nb\tnot a number\na\t1\n");
+
+        TsvIndex<String, Integer> index = new TsvIndex<>(file(), "test", CODEC);
+
+        assertEquals(Optional.of(1), index.get("a"));
+        assertEquals(List.of("a\t1"), Files.readAllLines(file()));
+    }
+}
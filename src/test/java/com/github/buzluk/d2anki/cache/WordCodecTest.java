@@ -0,0 +1,78 @@
+package com.github.buzluk.d2anki.cache;
+
+import com.github.buzluk.d2anki.model.Accent;
+import com.github.buzluk.d2anki.model.Meaning;
+import com.github.buzluk.d2anki.model.Pronunciation;
+import com.github.buzluk.d2anki.model.Word;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WordCodecTest {
+
+    private final List<String> symbols = new ArrayList<>();
+
+    private int symbolId(String symbol) {
+        int id = symbols.indexOf(symbol);
+        if (id < 0) {
+            symbols.add(symbol);
+            return symbols.size() - 1;
+        }
+        return id;
+    }
+
+    @Test
+    void shouldRoundTripWord() {
+        Word word = new Word("detect", "verb",
+                List.of(new Pronunciation(Accent.UK, "/dɪˈtekt/", "https://example.com/uk/detect.mp3"),
+                        new Pronunciation(Accent.US, "/dɪˈtekt/", "https://example.com/us/detect.mp3")),
+                List.of(new Meaning("to discover or notice something", List.of("cells detect light", "ünïcode")),
+                        new Meaning("to find", List.of())));
+
+        byte[] encoded = WordCodec.encode("detect", 1234L, word, this::symbolId);
+
+        assertEquals(word, WordCodec.decode(ByteBuffer.wrap(encoded), symbols::get));
+        assertEquals(List.of("verb", "UK", "US"), symbols);
+    }
+
+    @Test
+    void shouldRoundTripNullFields() {
+        Word word = new Word(null, null,
+                List.of(new Pronunciation(null, null, null)),
+                List.of(new Meaning(null, List.of())));
+
+        byte[] encoded = WordCodec.encode("blank", 0L, word, this::symbolId);
+
+        assertEquals(word, WordCodec.decode(ByteBuffer.wrap(encoded), symbols::get));
+        assertEquals(List.of(), symbols);
+    }
+
+    @Test
+    void shouldReadKeyAndTimestampWithoutDecodingWord() {
+        byte[] encoded = WordCodec.encode("ice-cream", 1_700_000_000_000L,
+                new Word("ice cream", "noun", List.of(), List.of()), this::symbolId);
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+
+        assertEquals("ice-cream", WordCodec.readKey(in));
+        assertEquals(1_700_000_000_000L, WordCodec.readStoredAt(in));
+    }
+
+    @Test
+    void shouldRoundTripVarLongs() {
+        long[] values = {0, 1, 127, 128, 300, Integer.MAX_VALUE, Long.MAX_VALUE, -1};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (long value : values) {
+            WordCodec.writeVarLong(out, value);
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+        for (long value : values) {
+            assertEquals(value, WordCodec.readVarLong(in));
+        }
+    }
+}
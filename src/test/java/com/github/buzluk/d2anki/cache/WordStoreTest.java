@@ -0,0 +1,230 @@
+package com.github.buzluk.d2anki.cache;
+
+import com.github.buzluk.d2anki.model.Accent;
+import com.github.buzluk.d2anki.model.Meaning;
+import com.github.buzluk.d2anki.model.Pronunciation;
+import com.github.buzluk.d2anki.model.Word;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WordStoreTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private Path file() {
+        return dir.resolve("words.bin");
+    }
+
+    private WordStore storeAt(Instant now) {
+        return new WordStore(file(), Duration.ofDays(30), Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static Word word(String name, String category) {
+        return new Word(name, category,
+                List.of(new Pronunciation(Accent.UK, "/x/", "https://example.com/" + name + ".mp3")),
+                List.of(new Meaning("meaning of " + name, List.of("an example"))));
+    }
+
+    @Test
+    void shouldReturnStoredWord() throws IOException {
+        try (WordStore store = storeAt(NOW)) {
+            store.put("detect", word("detect", "verb"));
+
+            assertEquals(Optional.of(word("detect", "verb")), store.get("detect"));
+            assertTrue(store.get("other").isEmpty());
+        }
+    }
+
+    @Test
+    void shouldMatchLookedUpWordLikeTheDictionaryUrl() throws IOException {
+        try (WordStore store = storeAt(NOW)) {
+            store.put("Ice Cream", word("ice cream", "noun"));
+
+            assertEquals(Optional.of(word("ice cream", "noun")), store.get("  ice cream "));
+        }
+    }
+
+    @Test
+    void shouldReloadFromDiskAndKeepLastRecordForKey() throws IOException {
+        try (WordStore store = storeAt(NOW)) {
+            store.put("detect", word("detect", "verb"));
+            store.put("record", word("record", "noun"));
+            store.put("detect", word("detect", "noun"));
+        }
+
+        try (WordStore reopened = storeAt(NOW)) {
+            assertEquals(2, reopened.size());
+            assertEquals(Optional.of(word("detect", "noun")), reopened.get("detect"));
+            assertEquals(Optional.of(word("record", "noun")), reopened.get("record"));
+
+            reopened.put("play", word("play", "verb"));
+            assertEquals(Optional.of(word("play", "verb")), reopened.get("play"));
+        }
+    }
+
+    @Test
+    void shouldExpireWordsOlderThanTtl() throws IOException {
+        try (WordStore store = storeAt(NOW)) {
+            store.put("detect", word("detect", "verb"));
+        }
+
+        try (WordStore later = storeAt(NOW.plus(Duration.ofDays(31)))) {
+            assertTrue(later.get("detect").isEmpty());
+        }
+    }
+
+    @Test
+    void shouldWriteRepeatedSymbolsOnce() throws IOException {
+        long first;
+        long second;
+        try (WordStore store = storeAt(NOW)) {
+            store.put("a", word("a", "verb"));
+            first = Files.size(file());
+            store.put("b", word("b", "verb"));
+            second = Files.size(file()) - first;
+        }
+
+        assertTrue(second < first - Integer.BYTES * 2, "second record should not repeat symbol definitions");
+    }
+
+    @Test
+    void shouldDropIncompleteTrailingRecord() throws IOException {
+        try (WordStore store = storeAt(NOW)) {
+            store.put("detect", word("detect", "verb"));
+            store.put("record", word("record", "noun"));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file().toFile(), "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        try (WordStore reopened = storeAt(NOW)) {
+            assertEquals(Optional.of(word("detect", "verb")), reopened.get("detect"));
+            assertTrue(reopened.get("record").isEmpty());
+
+            reopened.put("record", word("record", "noun"));
+            assertEquals(Optional.of(word("record", "noun")), reopened.get("record"));
+        }
+        try (WordStore again = storeAt(NOW)) {
+            assertEquals(2, again.size());
+        }
+    }
+
+    @Test
+    void shouldTruncateAtRecordWithImpossibleLength() throws IOException {
+        try (WordStore store = storeAt(NOW)) {
+            store.put("detect", word("detect", "verb"));
+        }
+        long good = Files.size(file());
+        ByteArrayOutputStream damaged = new ByteArrayOutputStream();
+        damaged.write(2);
+        WordCodec.writeVarLong(damaged, 0xFFFF_FFFFL);
+        damaged.write(new byte[16], 0, 16);
+        Files.write(file(), damaged.toByteArray(), StandardOpenOption.APPEND);
+
+        try (WordStore reopened = storeAt(NOW)) {
+            assertEquals(Optional.of(word("detect", "verb")), reopened.get("detect"));
+        }
+        assertEquals(good, Files.size(file()));
+    }
+
+    @Test
+    void shouldTruncateAtRecordWithDamagedKey() throws IOException {
+        try (WordStore store = storeAt(NOW)) {
+            store.put("detect", word("detect", "verb"));
+        }
+        long good = Files.size(file());
+        ByteArrayOutputStream damaged = new ByteArrayOutputStream();
+        damaged.write(2);
+        WordCodec.writeVarLong(damaged, 5);
+        WordCodec.writeVarLong(damaged, 0x7FFF_FFFFL);
+        Files.write(file(), damaged.toByteArray(), StandardOpenOption.APPEND);
+
+        try (WordStore reopened = storeAt(NOW)) {
+            assertEquals(1, reopened.size());
+        }
+        assertEquals(good, Files.size(file()));
+    }
+
+    @Test
+    void shouldTruncateAtWordRecordWithoutKey() throws IOException {
+        try (WordStore store = storeAt(NOW)) {
+            store.put("detect", word("detect", "verb"));
+        }
+        long good = Files.size(file());
+        Files.write(file(), new byte[]{2, 1, 0}, StandardOpenOption.APPEND);
+
+        try (WordStore reopened = storeAt(NOW)) {
+            assertEquals(1, reopened.size());
+        }
+        assertEquals(good, Files.size(file()));
+    }
+
+    @Test
+    void shouldStartOverOnUnknownFormat() throws IOException {
+        Files.write(file(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+        try (WordStore store = storeAt(NOW)) {
+            assertEquals(0, store.size());
+            store.put("detect", word("detect", "verb"));
+            assertEquals(Optional.of(word("detect", "verb")), store.get("detect"));
+        }
+    }
+
+    @Test
+    void shouldNotAppendUnchangedFreshWord() throws IOException {
+        try (WordStore store = storeAt(NOW)) {
+            store.put("detect", word("detect", "verb"));
+            long size = Files.size(file());
+
+            store.put("detect", word("detect", "verb"));
+
+            assertEquals(size, Files.size(file()));
+        }
+    }
+
+    @Test
+    void shouldCompactReplacedRecordsOnOpen() throws IOException {
+        try (WordStore store = storeAt(NOW)) {
+            store.put("detect", word("detect", "verb"));
+            store.put("record", word("record", "noun"));
+        }
+        long compactSize = Files.size(file());
+        try (WordStore store = storeAt(NOW)) {
+            for (int i = 0; i < 5; i++) {
+                store.put("detect", word("detect", "verb " + i));
+            }
+        }
+
+        try (WordStore reopened = storeAt(NOW)) {
+            assertEquals(Optional.of(word("detect", "verb 4")), reopened.get("detect"));
+            assertEquals(Optional.of(word("record", "noun")), reopened.get("record"));
+            reopened.put("play", word("play", "verb"));
+        }
+        assertTrue(Files.size(file()) < compactSize * 3, "replaced records should have been dropped");
+
+        try (WordStore again = storeAt(NOW)) {
+            assertEquals(3, again.size());
+            assertEquals(Optional.of(word("detect", "verb 4")), again.get("detect"));
+            assertEquals(Optional.of(word("play", "verb")), again.get("play"));
+        }
+    }
+}
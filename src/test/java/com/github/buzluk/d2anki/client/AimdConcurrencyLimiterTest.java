@@ -0,0 +1,131 @@
+package com.github.buzluk.d2anki.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AimdConcurrencyLimiterTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void shouldStartAtInitialLimit() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 64);
+
+        assertEquals(10, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shouldGrowWhileSaturatedAndLatencyIsFlat() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(4, 1, 64);
+
+        for (int i = 0; i < 200; i++) {
+            fill(limiter);
+            drain(limiter, RequestOutcome.SUCCESS, RTT);
+        }
+
+        assertTrue(limiter.getLimit() > 4);
+    }
+
+    @Test
+    void shouldNotGrowWhenUnderutilized() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 64);
+
+        for (int i = 0; i < 200; i++) {
+            limiter.acquire();
+            limiter.release(RequestOutcome.SUCCESS, RTT);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void shouldNotExceedMaxLimit() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(4, 1, 6);
+
+        for (int i = 0; i < 500; i++) {
+            fill(limiter);
+            drain(limiter, RequestOutcome.SUCCESS, RTT);
+        }
+
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    void shouldHalveOnOverload() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 64);
+
+        limiter.acquire();
+        limiter.release(RequestOutcome.OVERLOAD, 0);
+
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void shouldCountOverloadBurstOnlyOnce() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 64);
+        fill(limiter);
+
+        drain(limiter, RequestOutcome.OVERLOAD, TimeUnit.SECONDS.toNanos(10));
+
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void shouldNotDropBelowMinLimit() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 2, 64);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+            limiter.release(RequestOutcome.OVERLOAD, 0);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void shouldShrinkWhenLatencyRises() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 64);
+        limiter.acquire();
+        limiter.release(RequestOutcome.SUCCESS, RTT);
+
+        limiter.acquire();
+        limiter.release(RequestOutcome.SUCCESS, RTT * 5);
+
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void shouldIgnoreNeutralOutcomes() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 64);
+
+        limiter.acquire();
+        limiter.release(RequestOutcome.IGNORED, RTT * 100);
+
+        assertEquals(10, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shouldRejectInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AimdConcurrencyLimiter(10, 20, 64));
+        assertThrows(IllegalArgumentException.class, () -> new AimdConcurrencyLimiter(10, 0, 64));
+        assertThrows(IllegalArgumentException.class, () -> new AimdConcurrencyLimiter(100, 1, 64));
+    }
+
+    private void fill(AimdConcurrencyLimiter limiter) throws InterruptedException {
+        int limit = limiter.getLimit();
+        for (int i = 0; i < limit; i++) {
+            limiter.acquire();
+        }
+    }
+
+    private void drain(AimdConcurrencyLimiter limiter, RequestOutcome outcome, long rttNanos) {
+        while (limiter.getInFlight() > 0) {
+            limiter.release(outcome, rttNanos);
+        }
+    }
+}
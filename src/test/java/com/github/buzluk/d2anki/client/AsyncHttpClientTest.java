@@ -0,0 +1,624 @@
+package com.github.buzluk.d2anki.client;
+
+import com.github.buzluk.d2anki.client.request.AsyncHttpRequest;
+import com.github.buzluk.d2anki.client.request.FileDownloadRequest;
+import com.github.buzluk.d2anki.client.request.Validators;
+import com.github.buzluk.d2anki.exception.RequestFailedException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncHttpClientTest {
+
+    private HttpServer server;
+    private final AtomicInteger serverHits = new AtomicInteger();
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private final List<AsyncHttpClient> clients = new ArrayList<>();
+
+    @BeforeAll
+    static void disableNagle() {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/slow", exchange -> {
+            serverHits.incrementAndGet();
+            sleep(200);
+            respond(exchange, 200, "ok");
+        });
+        server.createContext("/fast", exchange -> {
+            serverHits.incrementAndGet();
+            respond(exchange, 200, "ok");
+        });
+        server.createContext("/blocked", exchange -> {
+            await(unblock);
+            respond(exchange, 200, "ok");
+        });
+        server.createContext("/missing", exchange -> respond(exchange, 404, "missing"));
+        server.createContext("/broken", exchange -> respond(exchange, 500, "broken"));
+        AtomicInteger stallHits = new AtomicInteger();
+        server.createContext("/stall", exchange -> {
+            if (stallHits.getAndIncrement() == 0) {
+                await(unblock);
+            }
+            respond(exchange, 200, "ok");
+        });
+        AtomicInteger throttledHits = new AtomicInteger();
+        server.createContext("/throttled", exchange -> {
+            if (throttledHits.getAndIncrement() == 0) {
+                exchange.getResponseHeaders().add("RateLimit-Limit", "1");
+                exchange.getResponseHeaders().add("RateLimit-Policy", "1;w=60");
+                respond(exchange, 429, "slow down");
+                return;
+            }
+            await(unblock);
+            respond(exchange, 200, "ok");
+        });
+        server.createContext("/down", exchange -> {
+            serverHits.incrementAndGet();
+            respond(exchange, 500, "down");
+        });
+        HttpHandler etagged = exchange -> {
+            serverHits.incrementAndGet();
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            } else {
+                respond(exchange, 200, "fresh");
+            }
+        };
+        server.createContext("/etag", etagged);
+        server.createContext("/audio.mp3", etagged);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        unblock.countDown();
+        clients.forEach(AsyncHttpClient::close);
+        server.stop(0);
+    }
+
+    private AsyncHttpClient open() {
+        return open(ClientConfig.defaults());
+    }
+
+    private AsyncHttpClient open(ClientConfig config) {
+        AsyncHttpClient client = new AsyncHttpClient(config);
+        clients.add(client);
+        return client;
+    }
+
+    @Test
+    void shouldStopDispatchersAndRejectRequestsOnceClosed() throws InterruptedException {
+        AsyncHttpClient client = open();
+        client.sendRequest(new TestRequest(uri("/fast"), new AtomicInteger()));
+        client.waitForFinish();
+
+        client.close();
+
+        CompletableFuture<HttpResponse<String>> late =
+                client.sendRequest(new TestRequest(uri("/fast"), new AtomicInteger()));
+        CompletionException failure = assertThrows(CompletionException.class, late::join);
+        assertInstanceOf(RequestFailedException.class, failure.getCause());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dispatcherAlive() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(dispatcherAlive());
+    }
+
+    private static boolean dispatcherAlive() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.getName().startsWith("AsyncHttpClient-Dispatcher-"));
+    }
+
+    @Test
+    void shouldCoalesceConcurrentRequestsForSameUri() {
+        AsyncHttpClient client = open();
+        AtomicInteger handled = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            client.sendRequest(new TestRequest(uri("/slow"), handled));
+        }
+        client.waitForFinish();
+
+        assertEquals(1, serverHits.get());
+        assertEquals(5, handled.get());
+        assertEquals(4, client.metrics().coalesced());
+    }
+
+    @Test
+    void shouldSendAgainOnceEarlierRequestHasLanded() {
+        AsyncHttpClient client = open();
+        AtomicInteger handled = new AtomicInteger();
+
+        client.sendRequest(new TestRequest(uri("/fast"), handled));
+        client.waitForFinish();
+        client.sendRequest(new TestRequest(uri("/fast"), handled));
+        client.waitForFinish();
+
+        assertEquals(2, serverHits.get());
+        assertEquals(2, handled.get());
+    }
+
+    @Test
+    void shouldCompleteFutureWithFinalResponse() {
+        AsyncHttpClient client = open();
+        AtomicInteger handled = new AtomicInteger();
+
+        HttpResponse<String> response = client.sendRequest(new TestRequest(uri("/fast"), handled)).join();
+
+        assertEquals(200, response.statusCode());
+        assertEquals("ok", response.body());
+        assertEquals(1, handled.get());
+    }
+
+    @Test
+    void shouldCompleteFutureForNotFoundWithoutCallingHandler() {
+        AsyncHttpClient client = open();
+        AtomicInteger handled = new AtomicInteger();
+
+        HttpResponse<String> response = client.sendRequest(new TestRequest(uri("/missing"), handled)).join();
+
+        assertEquals(404, response.statusCode());
+        assertEquals(0, handled.get());
+    }
+
+    @Test
+    void shouldFailFutureWhenRetriesAreExhausted() {
+        AsyncHttpClient client = open();
+        TestRequest request = new TestRequest(uri("/broken"), new AtomicInteger(), 0);
+
+        CompletableFuture<HttpResponse<String>> completion = client.sendRequest(request);
+
+        CompletionException thrown = assertThrows(CompletionException.class, completion::join);
+        assertInstanceOf(RequestFailedException.class, thrown.getCause());
+        assertEquals(List.of(request), client.getFailedRequests());
+    }
+
+    @Test
+    void shouldWaitOnlyForRequestsOfGroup() {
+        AsyncHttpClient client = open();
+        AtomicInteger handled = new AtomicInteger();
+        CompletableFuture<HttpResponse<String>> outside =
+                client.sendRequest(new TestRequest(uri("/blocked"), new AtomicInteger()));
+
+        RequestGroup group = client.newGroup();
+        group.send(new TestRequest(uri("/fast"), handled));
+        group.send(new TestRequest(uri("/missing"), handled));
+        group.await();
+
+        assertEquals(2, group.size());
+        assertEquals(1, handled.get());
+        assertFalse(outside.isDone(), "the blocked request outside the group is still running");
+    }
+
+    @Test
+    void shouldShowEveryResponseToGroupListenerBeforeGroupSettles() {
+        AsyncHttpClient client = open();
+        Map<URI, Integer> statuses = new ConcurrentHashMap<>();
+        RequestGroup group = client.newGroup((request, response) ->
+                statuses.put(request.getHttpRequest().uri(), response.statusCode()));
+
+        group.send(new TestRequest(uri("/fast"), new AtomicInteger()));
+        group.send(new TestRequest(uri("/missing"), new AtomicInteger()));
+        group.await();
+
+        assertEquals(Map.of(uri("/fast"), 200, uri("/missing"), 404), statuses);
+    }
+
+    @Test
+    void shouldBlockSubmitterWhileQueueIsFull() throws InterruptedException {
+        AsyncHttpClient client = open(ClientConfig.defaults().toBuilder()
+                .maxQueuedRequests(2)
+                .build());
+        AtomicInteger handled = new AtomicInteger();
+        client.sendRequest(new TestRequest(uri("/blocked?1"), handled));
+        client.sendRequest(new TestRequest(uri("/blocked?2"), handled));
+        CountDownLatch submitted = new CountDownLatch(1);
+
+        Thread producer = Thread.ofVirtual().start(() -> {
+            client.sendRequest(new TestRequest(uri("/fast"), handled));
+            submitted.countDown();
+        });
+
+        assertFalse(submitted.await(200, TimeUnit.MILLISECONDS), "third submission must wait for a free slot");
+        unblock.countDown();
+        assertTrue(submitted.await(5, TimeUnit.SECONDS));
+        producer.join();
+        client.waitForFinish();
+        assertEquals(3, handled.get());
+    }
+
+    @Test
+    void shouldNotLoseWakeupWhenSubmittingToIdleDispatcher() throws Exception {
+        AsyncHttpClient client = open();
+        AtomicInteger handled = new AtomicInteger();
+        long worstMillis = 0;
+
+        for (int i = 0; i < 500; i++) {
+            long start = System.nanoTime();
+            client.sendRequest(new TestRequest(uri("/fast?round=" + i), handled)).get(5, TimeUnit.SECONDS);
+            worstMillis = Math.max(worstMillis, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+
+        assertEquals(500, handled.get());
+        assertTrue(worstMillis < 1000, "slowest round trip to an idle dispatcher took " + worstMillis + "ms");
+    }
+
+    @Test
+    void shouldFinishPromptlyUnderConcurrentSubmitters() throws InterruptedException {
+        AsyncHttpClient client = open();
+        AtomicInteger handled = new AtomicInteger();
+        List<Thread> producers = new ArrayList<>();
+
+        for (int p = 0; p < 8; p++) {
+            int producer = p;
+            producers.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 100; i++) {
+                    client.sendRequest(new TestRequest(uri("/fast?p=" + producer + "&i=" + i), handled));
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        long start = System.nanoTime();
+        client.waitForFinish();
+        long drainMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(800, handled.get());
+        assertEquals(0, client.metrics().activeTasks());
+        assertTrue(drainMillis < 20_000, "draining took " + drainMillis + "ms");
+    }
+
+    @Test
+    void shouldReturnFromWaitForFinishWithoutPollingDelay() {
+        AsyncHttpClient client = open();
+        long worstMillis = 0;
+
+        for (int i = 0; i < 50; i++) {
+            client.sendRequest(new TestRequest(uri("/fast?wait=" + i), new AtomicInteger()));
+            long start = System.nanoTime();
+            client.waitForFinish();
+            worstMillis = Math.max(worstMillis, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+
+        assertTrue(worstMillis < 1000, "slowest waitForFinish took " + worstMillis + "ms");
+    }
+
+    @Test
+    void shouldKeepOtherBulkheadsMovingWhileOneIsSaturated() {
+        AsyncHttpClient client = open(ClientConfig.defaults().toBuilder()
+                .limiterFactory(() -> new FixedConcurrencyLimiter(1))
+                .build());
+        AtomicInteger handled = new AtomicInteger();
+        CompletableFuture<HttpResponse<String>> blocked = client.sendRequest(new TestRequest(uri("/blocked"), handled));
+
+        CompletableFuture<HttpResponse<String>> other = client.sendRequest(new OtherTestRequest(uri("/fast"), handled));
+
+        assertEquals(200, other.orTimeout(5, TimeUnit.SECONDS).join().statusCode());
+        assertFalse(blocked.isDone());
+        assertEquals(2, client.metrics().bulkheads().size());
+        unblock.countDown();
+        client.waitForFinish();
+        assertEquals(2, handled.get());
+    }
+
+    @Test
+    void shouldStopHittingHostOnceCircuitIsOpen() {
+        AsyncHttpClient client = open(ClientConfig.defaults().toBuilder()
+                .limiterFactory(() -> new FixedConcurrencyLimiter(1))
+                .retryPolicy(new RetryPolicy(Duration.ofMillis(1), Duration.ofMillis(1)))
+                .circuitBreaker(new CircuitBreakerPolicy(3, Duration.ofMillis(50), 1))
+                .build());
+        AtomicInteger handled = new AtomicInteger();
+        List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            futures.add(client.sendRequest(new TestRequest(uri("/down?" + i), handled, 5)));
+        }
+        client.waitForFinish();
+
+        assertTrue(futures.stream().allMatch(CompletableFuture::isCompletedExceptionally));
+        assertTrue(serverHits.get() < 20, "most requests must be turned away without a server hit");
+        assertEquals(20, client.metrics().failed());
+        assertNotEquals(CircuitState.CLOSED,
+                client.metrics().bulkheads().values().iterator().next().circuitState());
+    }
+
+    @Test
+    void shouldHedgeSlowRequestAndKeepFasterResponse() {
+        AsyncHttpClient client = open(ClientConfig.defaults().toBuilder()
+                .hedging(new HedgingPolicy(50, Duration.ofMillis(100), 3))
+                .build());
+        AtomicInteger handled = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            client.sendRequest(new HedgeableTestRequest(uri("/fast?" + i), handled)).join();
+        }
+
+        CompletableFuture<HttpResponse<String>> stalled =
+                client.sendRequest(new HedgeableTestRequest(uri("/stall"), handled));
+
+        assertEquals(200, stalled.orTimeout(5, TimeUnit.SECONDS).join().statusCode());
+        assertEquals(1, client.metrics().hedged());
+        assertEquals(4, handled.get());
+    }
+
+    @Test
+    void shouldNotHedgeWithoutSpareConcurrency() {
+        AsyncHttpClient client = open(ClientConfig.defaults().toBuilder()
+                .limiterFactory(() -> new FixedConcurrencyLimiter(1))
+                .hedging(new HedgingPolicy(50, Duration.ZERO, 1))
+                .build());
+        AtomicInteger handled = new AtomicInteger();
+        client.sendRequest(new HedgeableTestRequest(uri("/fast"), handled)).join();
+
+        CompletableFuture<HttpResponse<String>> stalled =
+                client.sendRequest(new HedgeableTestRequest(uri("/stall"), handled));
+
+        assertThrows(CompletionException.class, () -> stalled.orTimeout(300, TimeUnit.MILLISECONDS).join());
+        assertEquals(0, client.metrics().hedged());
+        unblock.countDown();
+        client.waitForFinish();
+    }
+
+    @Test
+    void shouldNotHedgeWithoutPacerToken() {
+        AsyncHttpClient client = open(ClientConfig.defaults().toBuilder()
+                .retryPolicy(new RetryPolicy(Duration.ofMillis(1), Duration.ofMillis(1)))
+                .hedging(new HedgingPolicy(50, Duration.ZERO, 1))
+                .build());
+        AtomicInteger handled = new AtomicInteger();
+        client.sendRequest(new RetryHedgeableTestRequest(uri("/fast"), handled)).join();
+
+        CompletableFuture<HttpResponse<String>> throttled =
+                client.sendRequest(new RetryHedgeableTestRequest(uri("/throttled"), handled));
+
+        assertThrows(CompletionException.class, () -> throttled.orTimeout(300, TimeUnit.MILLISECONDS).join());
+        assertEquals(0, client.metrics().hedged(), "the retry took the only token the learned rate allows");
+        unblock.countDown();
+        client.waitForFinish();
+    }
+
+    @Test
+    void shouldNotHedgeUnlessCircuitIsClosed() {
+        AsyncHttpClient client = open(ClientConfig.defaults().toBuilder()
+                .circuitBreaker(new CircuitBreakerPolicy(1, Duration.ofMillis(50), 5))
+                .hedging(new HedgingPolicy(50, Duration.ZERO, 1))
+                .build());
+        AtomicInteger handled = new AtomicInteger();
+        client.sendRequest(new HedgeableTestRequest(uri("/fast"), handled)).join();
+        client.sendRequest(new TestRequest(uri("/broken"), handled, 0)).exceptionally(_ -> null).join();
+
+        CompletableFuture<HttpResponse<String>> probe =
+                client.sendRequest(new HedgeableTestRequest(uri("/stall"), handled));
+
+        assertThrows(CompletionException.class, () -> probe.orTimeout(300, TimeUnit.MILLISECONDS).join());
+        assertEquals(0, client.metrics().hedged(), "the probe of a half-open circuit must go alone");
+        unblock.countDown();
+        client.waitForFinish();
+    }
+
+    @Test
+    void shouldCancelStalledRequestAfterTimeout() {
+        AsyncHttpClient client = open(ClientConfig.defaults().toBuilder()
+                .limiterFactory(() -> new FixedConcurrencyLimiter(1))
+                .requestTimeout(new TimeoutPolicy(99, 3, Duration.ofMillis(200), Duration.ofMillis(200), 1))
+                .build());
+        AtomicInteger handled = new AtomicInteger();
+
+        CompletableFuture<HttpResponse<String>> stalled =
+                client.sendRequest(new TestRequest(uri("/blocked"), handled, 0));
+        CompletableFuture<HttpResponse<String>> next = client.sendRequest(new TestRequest(uri("/fast"), handled));
+
+        CompletionException thrown = assertThrows(CompletionException.class,
+                () -> stalled.orTimeout(5, TimeUnit.SECONDS).join());
+        assertInstanceOf(RequestFailedException.class, thrown.getCause());
+        assertEquals(200, next.orTimeout(5, TimeUnit.SECONDS).join().statusCode());
+    }
+
+    @Test
+    void shouldWarmUpHostsWithoutFailingOnUnreachableOnes() {
+        AsyncHttpClient client = open();
+
+        client.warmUp(List.of(uri("/fast"), URI.create("http://127.0.0.1:1/")))
+                .orTimeout(5, TimeUnit.SECONDS)
+                .join();
+
+        assertEquals(1, serverHits.get());
+        assertEquals(0, client.metrics().activeTasks());
+    }
+
+    @Test
+    void shouldReleasePermitBeforeHandlerRuns() throws InterruptedException {
+        AsyncHttpClient client = open(ClientConfig.defaults().toBuilder()
+                .limiterFactory(() -> new FixedConcurrencyLimiter(1))
+                .handlerThreads(2)
+                .build());
+        CountDownLatch handlerStarted = new CountDownLatch(1);
+        CountDownLatch releaseHandler = new CountDownLatch(1);
+        AtomicInteger handled = new AtomicInteger();
+
+        CompletableFuture<HttpResponse<String>> slowHandler = client.sendRequest(
+                new TestRequest(uri("/fast?slow"), handled) {
+                    @Override
+                    public void handleHttpResponse(HttpResponse<String> response) {
+                        handlerStarted.countDown();
+                        await(releaseHandler);
+                    }
+                });
+        assertTrue(handlerStarted.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<HttpResponse<String>> next = client.sendRequest(new TestRequest(uri("/fast"), handled));
+
+        assertEquals(200, next.orTimeout(5, TimeUnit.SECONDS).join().statusCode());
+        assertFalse(slowHandler.isDone());
+        releaseHandler.countDown();
+        client.waitForFinish();
+        assertTrue(slowHandler.isDone());
+    }
+
+    @Test
+    void shouldTreatNotModifiedAsSuccessWithoutRetrying() {
+        AsyncHttpClient client = open();
+        AtomicInteger handled = new AtomicInteger();
+        AtomicInteger notModified = new AtomicInteger();
+        HttpRequest conditional = new Validators("\"v1\"", null)
+                .conditional(HttpRequest.newBuilder(uri("/etag")).GET().build());
+
+        HttpResponse<String> response = client.sendRequest(new TestRequest(conditional, handled, 1) {
+            @Override
+            public void handleNotModified(HttpResponse<String> response) {
+                notModified.incrementAndGet();
+            }
+        }).join();
+
+        assertEquals(304, response.statusCode());
+        assertEquals(1, serverHits.get());
+        assertEquals(0, handled.get());
+        assertEquals(1, notModified.get());
+        assertTrue(client.getFailedRequests().isEmpty());
+    }
+
+    @Test
+    void shouldKeepDownloadedFileWhenNotModified(@TempDir Path dir) throws IOException {
+        AsyncHttpClient client = open();
+        Path target = dir.resolve("audio.mp3");
+        Files.writeString(target, "kept");
+        AtomicReference<Validators> stored = new AtomicReference<>();
+
+        client.sendRequest(FileDownloadRequest.of(uri("/audio.mp3").toString(), dir,
+                new Validators("\"v1\"", null), (_, validators) -> stored.set(validators))).join();
+
+        assertEquals("kept", Files.readString(target));
+        assertNull(stored.get());
+
+        client.sendRequest(FileDownloadRequest.of(uri("/audio.mp3").toString(), dir,
+                new Validators("\"v0\"", null), (_, validators) -> stored.set(validators))).join();
+
+        assertEquals("fresh", Files.readString(target));
+        assertEquals("\"v1\"", stored.get().etag());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class TestRequest extends AsyncHttpRequest<String> {
+        private final AtomicInteger handled;
+
+        TestRequest(URI uri, AtomicInteger handled) {
+            this(uri, handled, 1);
+        }
+
+        TestRequest(URI uri, AtomicInteger handled, int maxRetries) {
+            this(HttpRequest.newBuilder(uri).GET().build(), handled, maxRetries);
+        }
+
+        TestRequest(HttpRequest request, AtomicInteger handled, int maxRetries) {
+            super(request, maxRetries);
+            this.handled = handled;
+        }
+
+        @Override
+        public HttpResponse.BodyHandler<String> getBodyHandler() {
+            return HttpResponse.BodyHandlers.ofString();
+        }
+
+        @Override
+        public void handleHttpResponse(HttpResponse<String> response) {
+            handled.incrementAndGet();
+        }
+    }
+
+    private static class OtherTestRequest extends TestRequest {
+        OtherTestRequest(URI uri, AtomicInteger handled) {
+            super(uri, handled);
+        }
+    }
+
+    private static class HedgeableTestRequest extends TestRequest {
+        HedgeableTestRequest(URI uri, AtomicInteger handled) {
+            super(uri, handled);
+        }
+
+        @Override
+        public boolean isHedgeable() {
+            return true;
+        }
+    }
+
+    /**
+     * Only its retry may be hedged, so a hedge cannot race the response that teaches the pacer its rate.
+     */
+    private static class RetryHedgeableTestRequest extends TestRequest {
+        RetryHedgeableTestRequest(URI uri, AtomicInteger handled) {
+            super(uri, handled);
+        }
+
+        @Override
+        public boolean isHedgeable() {
+            return !shouldRetry();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.buzluk.d2anki.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final Duration COOL_DOWN = Duration.ofMillis(100);
+
+    @Test
+    void shouldOpenAfterConsecutiveFailures() throws InterruptedException {
+        CircuitBreaker breaker = breaker(3, 5);
+
+        fail(breaker, 2);
+        breaker.onResult(false, System.nanoTime());
+        fail(breaker, 2);
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+
+        fail(breaker, 1);
+        assertEquals(CircuitState.OPEN, breaker.getState());
+    }
+
+    @Test
+    void shouldHoldRequestsBackUntilCoolDownHasPassed() throws InterruptedException {
+        CircuitBreaker breaker = breaker(1, 5);
+        fail(breaker, 1);
+
+        long start = System.nanoTime();
+        assertTrue(breaker.acquire());
+
+        assertTrue(System.nanoTime() - start >= COOL_DOWN.toNanos() / 2);
+        assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void shouldLetOnlyOneProbeThroughAndCloseOnItsSuccess() throws Exception {
+        CircuitBreaker breaker = breaker(1, 5);
+        fail(breaker, 1);
+        assertTrue(breaker.acquire());
+        long probeStart = System.nanoTime();
+
+        CompletableFuture<Boolean> second = acquireAsync(breaker);
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+
+        breaker.onResult(false, probeStart);
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void shouldReopenWhenProbeFails() throws InterruptedException {
+        CircuitBreaker breaker = breaker(1, 5);
+        fail(breaker, 1);
+        assertTrue(breaker.acquire());
+
+        breaker.onResult(true, System.nanoTime());
+
+        assertEquals(CircuitState.OPEN, breaker.getState());
+    }
+
+    @Test
+    void shouldFailFastAfterRepeatedFailedProbes() throws InterruptedException {
+        CircuitBreaker breaker = breaker(1, 2);
+        fail(breaker, 1);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.acquire());
+            breaker.onResult(true, System.nanoTime());
+        }
+
+        assertFalse(breaker.acquire());
+
+        Thread.sleep(COOL_DOWN.toMillis() + 20);
+        assertTrue(breaker.acquire(), "a probe is still let through after the cool-down");
+    }
+
+    @Test
+    void shouldIgnoreResultsOfRequestsSentBeforeCircuitOpened() throws InterruptedException {
+        CircuitBreaker breaker = breaker(1, 5);
+        long sentEarlier = System.nanoTime();
+        fail(breaker, 1);
+        assertTrue(breaker.acquire());
+
+        breaker.onResult(true, sentEarlier);
+
+        assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void shouldRejectInvalidPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreakerPolicy(0, COOL_DOWN, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreakerPolicy(1, Duration.ZERO, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreakerPolicy(1, COOL_DOWN, 0));
+    }
+
+    private static CircuitBreaker breaker(int failureThreshold, int failFastAfterProbes) {
+        return new CircuitBreaker("test", new CircuitBreakerPolicy(failureThreshold, COOL_DOWN, failFastAfterProbes));
+    }
+
+    private static void fail(CircuitBreaker breaker, int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onResult(true, System.nanoTime());
+        }
+    }
+
+    private static CompletableFuture<Boolean> acquireAsync(CircuitBreaker breaker) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        Thread.ofVirtual().start(() -> {
+            try {
+                result.complete(breaker.acquire());
+            } catch (InterruptedException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+}
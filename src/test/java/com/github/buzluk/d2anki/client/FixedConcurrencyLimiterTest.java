@@ -0,0 +1,48 @@
+package com.github.buzluk.d2anki.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedConcurrencyLimiterTest {
+
+    @Test
+    void shouldKeepLimitRegardlessOfOutcome() throws InterruptedException {
+        FixedConcurrencyLimiter limiter = new FixedConcurrencyLimiter(3);
+
+        limiter.acquire();
+        limiter.release(RequestOutcome.OVERLOAD, 0);
+
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    void shouldBlockWhenLimitReached() throws InterruptedException {
+        FixedConcurrencyLimiter limiter = new FixedConcurrencyLimiter(1);
+        limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.release(RequestOutcome.SUCCESS, 0);
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        waiter.join();
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void shouldRejectNonPositiveLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new FixedConcurrencyLimiter(0));
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.buzluk.d2anki.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgedExchangeTest {
+
+    @Test
+    void shouldKeepFirstResponseAndCancelTheOther() {
+        CompletableFuture<HttpResponse<String>> primary = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<String>> hedge = new CompletableFuture<>();
+        HedgedExchange<String> race = new HedgedExchange<>(primary);
+        race.race(hedge);
+
+        hedge.complete(null);
+
+        assertTrue(race.isSettled());
+        assertFalse(race.result().isCompletedExceptionally());
+        assertTrue(primary.isCancelled());
+    }
+
+    @Test
+    void shouldWaitForOtherAttemptWhenOneFails() {
+        CompletableFuture<HttpResponse<String>> primary = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<String>> hedge = new CompletableFuture<>();
+        HedgedExchange<String> race = new HedgedExchange<>(primary);
+        race.race(hedge);
+
+        primary.completeExceptionally(new IOException("reset"));
+        assertFalse(race.isSettled());
+
+        hedge.completeExceptionally(new IOException("reset again"));
+        assertThrows(CompletionException.class, () -> race.result().join());
+    }
+
+    @Test
+    void shouldCancelAttemptThatJoinsSettledRace() {
+        CompletableFuture<HttpResponse<String>> primary = new CompletableFuture<>();
+        HedgedExchange<String> race = new HedgedExchange<>(primary);
+        primary.completeExceptionally(new IOException("reset"));
+
+        CompletableFuture<HttpResponse<String>> late = new CompletableFuture<>();
+        race.race(late);
+
+        assertTrue(late.isCancelled());
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.buzluk.d2anki.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyTrackerTest {
+
+    @Test
+    void shouldStayEmptyUntilEnoughSamples() {
+        LatencyTracker tracker = new LatencyTracker(10);
+        tracker.record(100);
+        tracker.record(200);
+
+        assertEquals(OptionalLong.empty(), tracker.percentileNanos(50, 3));
+        assertEquals(OptionalLong.of(100), tracker.percentileNanos(50, 2));
+    }
+
+    @Test
+    void shouldReturnNearestRankPercentile() {
+        LatencyTracker tracker = new LatencyTracker(100);
+        for (int i = 100; i >= 1; i--) {
+            tracker.record(i);
+        }
+
+        assertEquals(50, tracker.percentileNanos(50, 1).orElseThrow());
+        assertEquals(95, tracker.percentileNanos(95, 1).orElseThrow());
+        assertEquals(100, tracker.percentileNanos(99.9, 1).orElseThrow());
+    }
+
+    @Test
+    void shouldForgetOldestSamplesWhenFull() {
+        LatencyTracker tracker = new LatencyTracker(3);
+        tracker.record(1_000);
+        tracker.record(1);
+        tracker.record(2);
+        tracker.record(3);
+
+        assertEquals(3, tracker.percentileNanos(99, 1).orElseThrow());
+    }
+
+    @Test
+    void shouldRejectNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new LatencyTracker(0));
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.buzluk.d2anki.client;
+
+import com.github.buzluk.d2anki.client.request.AsyncHttpRequest;
+import com.github.buzluk.d2anki.client.request.RequestPriority;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriorityRequestQueueTest {
+
+    @Test
+    void shouldServeMoreUrgentLanesFirst() throws InterruptedException {
+        PriorityRequestQueue queue = new PriorityRequestQueue(Duration.ofMinutes(1));
+        AsyncHttpRequest<?> audio = request("audio");
+        AsyncHttpRequest<?> definition = request("definition");
+        AsyncHttpRequest<?> retry = request("retry");
+
+        queue.add(audio, RequestPriority.BULK_AUDIO);
+        queue.add(definition, RequestPriority.DEFINITION);
+        queue.add(retry, RequestPriority.RETRY);
+
+        assertSame(retry, queue.take());
+        assertSame(definition, queue.take());
+        assertSame(audio, queue.take());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void shouldKeepFifoOrderWithinLane() throws InterruptedException {
+        PriorityRequestQueue queue = new PriorityRequestQueue(Duration.ofMinutes(1));
+        AsyncHttpRequest<?> first = request("first");
+        AsyncHttpRequest<?> second = request("second");
+
+        queue.add(first, RequestPriority.DEFINITION);
+        queue.add(second, RequestPriority.DEFINITION);
+
+        assertSame(first, queue.take());
+        assertSame(second, queue.take());
+    }
+
+    @Test
+    void shouldServeAgedRequestBeforeFresherUrgentOnes() throws InterruptedException {
+        PriorityRequestQueue queue = new PriorityRequestQueue(Duration.ofMillis(20));
+        AsyncHttpRequest<?> audio = request("audio");
+        AsyncHttpRequest<?> definition = request("definition");
+
+        queue.add(audio, RequestPriority.BULK_AUDIO);
+        Thread.sleep(50);
+        queue.add(definition, RequestPriority.DEFINITION);
+
+        assertSame(audio, queue.take());
+        assertSame(definition, queue.take());
+    }
+
+    @Test
+    void shouldBlockTakeUntilRequestIsAdded() throws Exception {
+        PriorityRequestQueue queue = new PriorityRequestQueue(Duration.ofMinutes(1));
+        AsyncHttpRequest<?> request = request("late");
+        CompletableFuture<AsyncHttpRequest<?>> taken = new CompletableFuture<>();
+
+        Thread.ofVirtual().start(() -> {
+            try {
+                taken.complete(queue.take());
+            } catch (InterruptedException e) {
+                taken.completeExceptionally(e);
+            }
+        });
+
+        Thread.sleep(50);
+        assertFalse(taken.isDone());
+        queue.add(request, RequestPriority.BULK_AUDIO);
+        assertSame(request, taken.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldRejectNegativeAgingThreshold() {
+        assertThrows(IllegalArgumentException.class, () -> new PriorityRequestQueue(Duration.ofMillis(-1)));
+    }
+
+    private static AsyncHttpRequest<?> request(String name) {
+        return new AsyncHttpRequest<Void>(HttpRequest.newBuilder(URI.create("http://localhost/" + name)).build(), 0) {
+            @Override
+            public HttpResponse.BodyHandler<Void> getBodyHandler() {
+                return HttpResponse.BodyHandlers.discarding();
+            }
+
+            @Override
+            public void handleHttpResponse(HttpResponse<Void> response) {
+            }
+        };
+    }
+}
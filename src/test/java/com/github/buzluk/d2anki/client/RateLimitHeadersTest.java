@@ -0,0 +1,103 @@
+package com.github.buzluk.d2anki.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitHeadersTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    @Test
+    void shouldParseRetryAfterSeconds() {
+        RateLimitHeaders headers = RateLimitHeaders.parse(headers(Map.of("Retry-After", "7")), NOW);
+
+        assertEquals(Duration.ofSeconds(7), headers.retryAfter().orElseThrow());
+        assertEquals(Duration.ofSeconds(7), headers.pause().orElseThrow());
+    }
+
+    @Test
+    void shouldParseRetryAfterHttpDate() {
+        RateLimitHeaders headers = RateLimitHeaders.parse(
+                headers(Map.of("Retry-After", "Wed, 01 Jan 2025 12:00:30 GMT")), NOW);
+
+        assertEquals(Duration.ofSeconds(30), headers.retryAfter().orElseThrow());
+    }
+
+    @Test
+    void shouldClampRetryAfterDateInThePast() {
+        RateLimitHeaders headers = RateLimitHeaders.parse(
+                headers(Map.of("Retry-After", "Wed, 01 Jan 2025 11:59:00 GMT")), NOW);
+
+        assertEquals(Duration.ZERO, headers.retryAfter().orElseThrow());
+    }
+
+    @Test
+    void shouldIgnoreMalformedRetryAfter() {
+        RateLimitHeaders headers = RateLimitHeaders.parse(headers(Map.of("Retry-After", "soon")), NOW);
+
+        assertTrue(headers.retryAfter().isEmpty());
+        assertTrue(headers.pause().isEmpty());
+    }
+
+    @Test
+    void shouldDeriveRateFromPolicyWindow() {
+        RateLimitHeaders headers = RateLimitHeaders.parse(headers(Map.of(
+                "RateLimit-Limit", "120",
+                "RateLimit-Policy", "120;w=60")), NOW);
+
+        assertEquals(2.0, headers.permitsPerSecond().orElseThrow(), 1e-9);
+    }
+
+    @Test
+    void shouldDeriveRateFromRemainingAndReset() {
+        RateLimitHeaders headers = RateLimitHeaders.parse(headers(Map.of(
+                "X-RateLimit-Remaining", "30",
+                "X-RateLimit-Reset", "10")), NOW);
+
+        assertEquals(3.0, headers.permitsPerSecond().orElseThrow(), 1e-9);
+        assertTrue(headers.resetAfter().isEmpty());
+    }
+
+    @Test
+    void shouldPauseUntilResetWhenWindowIsExhausted() {
+        RateLimitHeaders headers = RateLimitHeaders.parse(headers(Map.of(
+                "X-RateLimit-Remaining", "0",
+                "X-RateLimit-Reset", String.valueOf(NOW.plusSeconds(15).getEpochSecond()))), NOW);
+
+        assertEquals(Duration.ofSeconds(15), headers.resetAfter().orElseThrow());
+        assertEquals(Duration.ofSeconds(15), headers.pause().orElseThrow());
+    }
+
+    @Test
+    void shouldPickLongestPause() {
+        RateLimitHeaders headers = RateLimitHeaders.parse(headers(Map.of(
+                "Retry-After", "5",
+                "RateLimit-Remaining", "0",
+                "RateLimit-Reset", "20")), NOW);
+
+        assertEquals(Duration.ofSeconds(20), headers.pause().orElseThrow());
+    }
+
+    @Test
+    void shouldReturnEmptyWithoutHeaders() {
+        RateLimitHeaders headers = RateLimitHeaders.parse(headers(Map.of()), NOW);
+
+        assertTrue(headers.retryAfter().isEmpty());
+        assertTrue(headers.permitsPerSecond().isEmpty());
+        assertTrue(headers.resetAfter().isEmpty());
+    }
+
+    private HttpHeaders headers(Map<String, String> values) {
+        Map<String, List<String>> map = new HashMap<>();
+        values.forEach((name, value) -> map.put(name, List.of(value)));
+        return HttpHeaders.of(map, (name, value) -> true);
+    }
+}
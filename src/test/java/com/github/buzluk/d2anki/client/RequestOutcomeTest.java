@@ -0,0 +1,28 @@
+package com.github.buzluk.d2anki.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestOutcomeTest {
+
+    @Test
+    void shouldTreatHealthyResponsesAsSuccess() {
+        assertEquals(RequestOutcome.SUCCESS, RequestOutcome.fromStatus(200));
+        assertEquals(RequestOutcome.SUCCESS, RequestOutcome.fromStatus(404));
+        assertEquals(RequestOutcome.SUCCESS, RequestOutcome.fromStatus(304));
+    }
+
+    @Test
+    void shouldTreatRateLimitAndServerErrorsAsOverload() {
+        assertEquals(RequestOutcome.OVERLOAD, RequestOutcome.fromStatus(429));
+        assertEquals(RequestOutcome.OVERLOAD, RequestOutcome.fromStatus(500));
+        assertEquals(RequestOutcome.OVERLOAD, RequestOutcome.fromStatus(503));
+    }
+
+    @Test
+    void shouldIgnoreOtherStatuses() {
+        assertEquals(RequestOutcome.IGNORED, RequestOutcome.fromStatus(301));
+        assertEquals(RequestOutcome.IGNORED, RequestOutcome.fromStatus(403));
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.buzluk.d2anki.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(Duration.ofMillis(200), Duration.ofSeconds(5));
+
+    @Test
+    void shouldStartAtBaseDelay() {
+        assertEquals(200, policy.nextDelayMillis(0));
+    }
+
+    @Test
+    void shouldStayWithinDecorrelatedBounds() {
+        for (int i = 0; i < 1000; i++) {
+            long delay = policy.nextDelayMillis(400);
+
+            assertTrue(delay >= 200, "delay below base: " + delay);
+            assertTrue(delay <= 1200, "delay above 3x previous: " + delay);
+        }
+    }
+
+    @Test
+    void shouldNeverExceedMaxDelay() {
+        long delay = 200;
+        for (int i = 0; i < 100; i++) {
+            delay = policy.nextDelayMillis(delay);
+
+            assertTrue(delay <= 5000, "delay above cap: " + delay);
+        }
+    }
+
+    @Test
+    void shouldSpreadDelays() {
+        long first = policy.nextDelayMillis(5000);
+        boolean differs = false;
+        for (int i = 0; i < 100 && !differs; i++) {
+            differs = policy.nextDelayMillis(5000) != first;
+        }
+
+        assertTrue(differs);
+    }
+
+    @Test
+    void shouldRejectInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(Duration.ZERO, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(Duration.ofSeconds(2), Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.buzluk.d2anki.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeoutPolicyTest {
+
+    private final TimeoutPolicy policy =
+            new TimeoutPolicy(99, 3, Duration.ofSeconds(1), Duration.ofSeconds(30), 10);
+
+    @Test
+    void shouldUseCeilingWithoutSamples() {
+        assertEquals(Duration.ofSeconds(30), policy.timeoutFor(OptionalLong.empty()));
+    }
+
+    @Test
+    void shouldScaleObservedPercentile() {
+        assertEquals(Duration.ofSeconds(6), policy.timeoutFor(OptionalLong.of(Duration.ofSeconds(2).toNanos())));
+    }
+
+    @Test
+    void shouldClampToFloorAndCeiling() {
+        assertEquals(Duration.ofSeconds(1), policy.timeoutFor(OptionalLong.of(Duration.ofMillis(10).toNanos())));
+        assertEquals(Duration.ofSeconds(30), policy.timeoutFor(OptionalLong.of(Duration.ofMinutes(5).toNanos())));
+    }
+
+    @Test
+    void shouldRejectInvalidPolicy() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TimeoutPolicy(99, 0.5, Duration.ofSeconds(1), Duration.ofSeconds(30), 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TimeoutPolicy(99, 3, Duration.ofSeconds(5), Duration.ofSeconds(1), 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TimeoutPolicy(100, 3, Duration.ofSeconds(1), Duration.ofSeconds(30), 10));
+    }
+}
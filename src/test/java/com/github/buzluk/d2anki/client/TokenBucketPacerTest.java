@@ -0,0 +1,94 @@
+package com.github.buzluk.d2anki.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketPacerTest {
+
+    @Test
+    void shouldNotPaceUntilRateIsKnown() throws InterruptedException {
+        TokenBucketPacer pacer = new TokenBucketPacer(0.9, 1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            pacer.acquire();
+        }
+
+        assertTrue(Double.isInfinite(pacer.getPermitsPerSecond()));
+        assertTrue(elapsedMillis(start) < 500);
+    }
+
+    @Test
+    void shouldApplyHeadroomToServerRate() {
+        TokenBucketPacer pacer = new TokenBucketPacer(0.5, 1);
+
+        pacer.onRateLimited(rate(100));
+
+        assertEquals(50, pacer.getPermitsPerSecond(), 1e-9);
+    }
+
+    @Test
+    void shouldPaceAtLearnedRate() throws InterruptedException {
+        TokenBucketPacer pacer = new TokenBucketPacer(1.0, 1);
+        pacer.onRateLimited(rate(50));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 11; i++) {
+            pacer.acquire();
+        }
+
+        assertTrue(elapsedMillis(start) >= 150, "ten refills at 50/s should take about 200ms");
+    }
+
+    @Test
+    void shouldHoldDispatchDuringPause() throws InterruptedException {
+        TokenBucketPacer pacer = new TokenBucketPacer(0.9, 1);
+        pacer.onRateLimited(new RateLimitHeaders(Optional.of(Duration.ofMillis(200)), OptionalDouble.empty(),
+                Optional.empty()));
+
+        long start = System.nanoTime();
+        pacer.acquire();
+
+        assertTrue(elapsedMillis(start) >= 150);
+    }
+
+    @Test
+    void shouldTakeTokenWithoutWaitingOnlyWhileOneIsLeft() {
+        TokenBucketPacer pacer = new TokenBucketPacer(1.0, 1);
+        assertTrue(pacer.tryAcquire(), "everything goes through until a rate is known");
+        pacer.onRateLimited(rate(1));
+
+        assertTrue(pacer.tryAcquire());
+        assertFalse(pacer.tryAcquire());
+    }
+
+    @Test
+    void shouldRefuseTokenDuringPause() {
+        TokenBucketPacer pacer = new TokenBucketPacer(0.9, 1);
+        pacer.onRateLimited(new RateLimitHeaders(Optional.of(Duration.ofSeconds(5)), OptionalDouble.empty(),
+                Optional.empty()));
+
+        assertFalse(pacer.tryAcquire());
+    }
+
+    @Test
+    void shouldRejectInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketPacer(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketPacer(1.5, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketPacer(0.9, 0));
+    }
+
+    private RateLimitHeaders rate(double permitsPerSecond) {
+        return new RateLimitHeaders(Optional.empty(), OptionalDouble.of(permitsPerSecond), Optional.empty());
+    }
+
+    private long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
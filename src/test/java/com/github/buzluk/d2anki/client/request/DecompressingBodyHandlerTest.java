@@ -0,0 +1,157 @@
+package com.github.buzluk.d2anki.client.request;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecompressingBodyHandlerTest {
+
+    private static final String HTML = "<html><body>"
+            + "<span class=\"def\">a word &amp; its meaning</span>".repeat(500)
+            + "ünïcödé</body></html>";
+
+    @Test
+    void shouldPassIdentityBodyThrough() {
+        assertEquals(HTML, decode(null, HTML.getBytes(StandardCharsets.UTF_8), 1024));
+    }
+
+    @Test
+    void shouldInflateGzipDeliveredInSmallChunks() throws IOException {
+        assertEquals(HTML, decode("gzip", gzip(HTML), 7));
+    }
+
+    @Test
+    void shouldInflateZlibAndRawDeflate() throws IOException {
+        assertEquals(HTML, decode("deflate", deflate(HTML, false), 100));
+        assertEquals(HTML, decode("deflate", deflate(HTML, true), 100));
+    }
+
+    @Test
+    void shouldDecodeZlibAndRawDeflateStreams() throws IOException {
+        for (boolean raw : new boolean[]{false, true}) {
+            try (InputStream in = DecompressingBodyHandler.decode(
+                    new ByteArrayInputStream(deflate(HTML, raw)), responseInfo("deflate"))) {
+                assertEquals(HTML, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void shouldSkipOptionalGzipHeaderFields() throws IOException {
+        byte[] plain = gzip(HTML);
+        ByteArrayOutputStream withName = new ByteArrayOutputStream();
+        withName.write(plain, 0, 3);
+        withName.write(plain[3] | 8);
+        withName.write(plain, 4, 6);
+        withName.writeBytes("page.html\0".getBytes(StandardCharsets.ISO_8859_1));
+        withName.write(plain, 10, plain.length - 10);
+
+        assertEquals(HTML, decode("gzip", withName.toByteArray(), 3));
+    }
+
+    @Test
+    void shouldDecodeEmptyCompressedBody() {
+        assertEquals("", decode("gzip", new byte[0], 1));
+    }
+
+    @Test
+    void shouldRejectCorruptGzipTrailer() throws IOException {
+        byte[] body = gzip(HTML);
+        body[body.length - 8] ^= 1;
+
+        CompletionException thrown = assertThrows(CompletionException.class, () -> decode("gzip", body, 64));
+        assertInstanceOf(ZipException.class, thrown.getCause());
+    }
+
+    @Test
+    void shouldRejectTruncatedBody() throws IOException {
+        byte[] body = gzip(HTML);
+        byte[] truncated = Arrays.copyOf(body, body.length / 2);
+
+        assertThrows(CompletionException.class, () -> decode("gzip", truncated, 64));
+    }
+
+    @Test
+    void shouldRejectUnsupportedEncoding() {
+        assertThrows(UncheckedIOException.class, () -> decode("br", new byte[0], 1));
+    }
+
+    private static String decode(String encoding, byte[] body, int chunkSize) {
+        HttpResponse.BodySubscriber<String> subscriber = DecompressingBodyHandler.ofString(StandardCharsets.UTF_8)
+                .apply(responseInfo(encoding));
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        for (int offset = 0; offset < body.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, body.length - offset);
+            subscriber.onNext(List.of(ByteBuffer.wrap(body, offset, length).slice()));
+        }
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().join();
+    }
+
+    private static HttpResponse.ResponseInfo responseInfo(String encoding) {
+        Map<String, List<String>> headers = encoding == null
+                ? Map.of()
+                : Map.of("Content-Encoding", List.of(encoding));
+        return new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return HttpHeaders.of(headers, (_, _) -> true);
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_2;
+            }
+        };
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(String text, boolean raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+            deflate.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+}
@@ -3,13 +3,23 @@ package com.github.buzluk.d2anki.client.request;
 import com.github.buzluk.d2anki.model.Word;
 import org.junit.jupiter.api.Test;
 
+import java.net.URI;
 import java.net.http.HttpResponse;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class SearchingWordRequestTest {
 
+    private static final String ENTRY_PAGE = """
+            <html><body><div id="main-container"><div id="entryContent"><div class="entry"><div class="top-container"><div class="top-g">
+            <div class="webtop"><h1 class="headword">detect</h1><span class="pos">verb</span></div>
+            </div></div></div></div></div></body></html>
+            """;
+
     @Test
     void shouldCreateRequestForWord() {
         AtomicReference<Word> result = new AtomicReference<>();
@@ -73,6 +83,18 @@ class SearchingWordRequestTest {
         assertNotNull(handler);
     }
 
+    @Test
+    void shouldLowercaseIndependentlyOfDefaultLocale() {
+        Locale original = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            assertEquals(URI.create("https://www.oxfordlearnersdictionaries.com/definition/english/in-time_1"),
+                    SearchingWordRequest.definitionUri("IN TIME"));
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+
     @Test
     void shouldHaveUserAgentHeader() {
         SearchingWordRequest request = SearchingWordRequest.forWord("test", word -> {
@@ -107,4 +129,92 @@ class SearchingWordRequestTest {
     void shouldThrowExceptionForNullHandler() {
         assertThrows(NullPointerException.class, () -> SearchingWordRequest.forWord("test", null));
     }
+
+    @Test
+    void shouldRequestNumberedHomograph() {
+        SearchingWordRequest request = SearchingWordRequest.forHomograph("lead", 2, word -> {
+        }, miss -> {
+        }, PageSink.NONE);
+
+        assertTrue(request.getHttpRequest().uri().toString().endsWith("/lead_2"));
+    }
+
+    @Test
+    void shouldTellPageSinkAboutMissingEntry() {
+        AtomicReference<URI> missing = new AtomicReference<>();
+        PageSink sink = new PageSink() {
+            @Override
+            public void fetched(URI url, String page, Validators validators) {
+            }
+
+            @Override
+            public Optional<String> notModified(URI url) {
+                return Optional.empty();
+            }
+
+            @Override
+            public void notFound(URI url) {
+                missing.set(url);
+            }
+        };
+        SearchingWordRequest request = SearchingWordRequest.forHomograph("lead", 3, word -> {
+        }, miss -> {
+        }, sink);
+
+        request.handleNotFound(null);
+
+        assertEquals(SearchingWordRequest.definitionUri("lead", 3), missing.get());
+    }
+
+    @Test
+    void shouldFetchUnconditionallyOnceStoredPageFailsToParse() {
+        PageSink brokenPage = new PageSink() {
+            @Override
+            public void fetched(URI url, String page, Validators validators) {
+            }
+
+            @Override
+            public Optional<String> notModified(URI url) {
+                return Optional.of("<html><body><div id=\"entryContent\"></div></body></html>");
+            }
+        };
+        SearchingWordRequest request = SearchingWordRequest.revalidate("lead", 1, word -> {
+        }, miss -> {
+        }, brokenPage, new Validators("\"v1\"", null));
+        assertTrue(request.getHttpRequest().headers().firstValue("If-None-Match").isPresent());
+
+        assertThrows(RuntimeException.class, () -> request.handleNotModified(null));
+
+        assertTrue(request.getHttpRequest().headers().firstValue("If-None-Match").isEmpty());
+        assertTrue(request.getHttpRequest().uri().toString().endsWith("/lead_1"));
+    }
+
+    @Test
+    void shouldHandCoalescedRequestTheLeadersWordWithoutStoringOrParsingAgain() {
+        AtomicInteger lookups = new AtomicInteger();
+        PageSink sink = new PageSink() {
+            @Override
+            public void fetched(URI url, String page, Validators validators) {
+                fail("the page is already stored");
+            }
+
+            @Override
+            public Optional<String> notModified(URI url) {
+                lookups.incrementAndGet();
+                return Optional.of(ENTRY_PAGE);
+            }
+        };
+        SearchingWordRequest leader = SearchingWordRequest.revalidate("detect", 1, word -> {
+        }, miss -> {
+        }, sink, new Validators("\"v1\"", null));
+        AtomicReference<Word> followed = new AtomicReference<>();
+        SearchingWordRequest follower = SearchingWordRequest.forHomograph("detect", 1, followed::set, miss -> {
+        }, sink);
+
+        leader.handleNotModified(null);
+        follower.handleCoalesced(leader, null);
+
+        assertEquals("detect", followed.get().name());
+        assertEquals(1, lookups.get());
+    }
 }
@@ -0,0 +1,100 @@
+package com.github.buzluk.d2anki.client.request;
+
+import com.github.buzluk.d2anki.model.Word;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingWordRequestTest {
+
+    private static final String ENTRY_PAGE = """
+            <html><body><div id="main-container"><div id="entryContent"><div class="entry"><div class="top-container"><div class="top-g">
+            <div class="webtop"><h1 class="headword">detect</h1><span class="pos">verb</span></div>
+            </div></div></div></div></div></body></html>
+            """;
+
+    @Test
+    void shouldCompleteBodyOnlyOnceThePageIsParsed() {
+        HttpResponse.BodySubscriber<StreamingWordRequest.Page> subscriber = subscriber(200);
+        CompletableFuture<StreamingWordRequest.Page> body = subscriber.getBody().toCompletableFuture();
+
+        assertThrows(TimeoutException.class, () -> body.get(100, TimeUnit.MILLISECONDS),
+                "the body must not complete before the page has arrived");
+        feed(subscriber, ENTRY_PAGE);
+
+        Word word = body.join().word();
+        assertEquals("detect", word.name());
+        assertEquals("verb", word.category());
+    }
+
+    @Test
+    void shouldNotParseBodiesOfOtherStatuses() {
+        HttpResponse.BodySubscriber<StreamingWordRequest.Page> subscriber = subscriber(404);
+
+        assertNull(subscriber.getBody().toCompletableFuture().join());
+    }
+
+    @Test
+    void shouldFailBodyWhenStreamBreaks() {
+        HttpResponse.BodySubscriber<StreamingWordRequest.Page> subscriber = subscriber(200);
+        CompletableFuture<StreamingWordRequest.Page> body = subscriber.getBody().toCompletableFuture();
+
+        subscriber.onError(new IOException("connection reset"));
+
+        assertThrows(CompletionException.class, body::join);
+    }
+
+    private static HttpResponse.BodySubscriber<StreamingWordRequest.Page> subscriber(int status) {
+        HttpResponse.BodySubscriber<StreamingWordRequest.Page> subscriber =
+                StreamingWordRequest.forWord("detect", _ -> {
+                }).getBodyHandler().apply(responseInfo(status));
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        return subscriber;
+    }
+
+    private static void feed(HttpResponse.BodySubscriber<?> subscriber, String body) {
+        subscriber.onNext(List.of(ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8))));
+        subscriber.onComplete();
+    }
+
+    private static HttpResponse.ResponseInfo responseInfo(int status) {
+        return new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return status;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return HttpHeaders.of(Map.of(), (_, _) -> true);
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_2;
+            }
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.buzluk.d2anki.client.request;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValidatorsTest {
+
+    private final HttpRequest request = HttpRequest.newBuilder(URI.create("https://example.com/a"))
+            .header("User-Agent", "test")
+            .GET()
+            .build();
+
+    @Test
+    void shouldReadValidatorsFromHeaders() {
+        HttpHeaders headers = HttpHeaders.of(Map.of(
+                "ETag", List.of("\"abc\""),
+                "Last-Modified", List.of("Wed, 01 Jan 2025 00:00:00 GMT")), (_, _) -> true);
+
+        assertEquals(new Validators("\"abc\"", "Wed, 01 Jan 2025 00:00:00 GMT"), Validators.from(headers));
+    }
+
+    @Test
+    void shouldBeEmptyWithoutValidatorHeaders() {
+        assertTrue(Validators.from(HttpHeaders.of(Map.of(), (_, _) -> true)).isEmpty());
+    }
+
+    @Test
+    void shouldAddConditionalHeadersAndKeepExistingOnes() {
+        HttpRequest conditional = new Validators("\"abc\"", "Wed, 01 Jan 2025 00:00:00 GMT").conditional(request);
+
+        assertEquals("\"abc\"", conditional.headers().firstValue("If-None-Match").orElseThrow());
+        assertEquals("Wed, 01 Jan 2025 00:00:00 GMT",
+                conditional.headers().firstValue("If-Modified-Since").orElseThrow());
+        assertEquals("test", conditional.headers().firstValue("User-Agent").orElseThrow());
+        assertEquals(request.uri(), conditional.uri());
+    }
+
+    @Test
+    void shouldLeaveRequestUnchangedWithoutValidators() {
+        assertSame(request, Validators.NONE.conditional(request));
+    }
+}
@@ -66,4 +66,41 @@ class WordTest {
 
         assertNotEquals(word1, word2);
     }
+
+    @Test
+    void shouldReturnSingleHomographUnchanged() {
+        Word word = new Word("lead", "verb", List.of(), List.of());
+
+        assertSame(word, Word.merge(List.of(word)));
+    }
+
+    @Test
+    void shouldMergeHomographsInEntryOrder() {
+        Pronunciation leadVerb = new Pronunciation(Accent.UK, "/liːd/", "https://example.com/lead_v.mp3");
+        Pronunciation leadNoun = new Pronunciation(Accent.UK, "/led/", "https://example.com/lead_n.mp3");
+        Word verb = new Word("lead", "verb", List.of(leadVerb),
+                List.of(new Meaning("to go with or in front of", List.of())));
+        Word noun = new Word("lead", "noun", List.of(leadVerb, leadNoun),
+                List.of(new Meaning("a heavy soft grey metal", List.of())));
+
+        Word merged = Word.merge(List.of(verb, noun));
+
+        assertEquals("lead", merged.name());
+        assertEquals("verb, noun", merged.category());
+        assertEquals(List.of(leadVerb, leadNoun), merged.pronunciations());
+        assertEquals(List.of("to go with or in front of", "a heavy soft grey metal"),
+                merged.meanings().stream().map(Meaning::definition).toList());
+    }
+
+    @Test
+    void shouldNotRepeatCategoryOrFailOnMissingParts() {
+        Word first = new Word("bank", "noun", null, List.of());
+        Word second = new Word("bank", "noun", List.of(), null);
+
+        Word merged = Word.merge(List.of(first, second));
+
+        assertEquals("noun", merged.category());
+        assertTrue(merged.pronunciations().isEmpty());
+        assertTrue(merged.meanings().isEmpty());
+    }
 }
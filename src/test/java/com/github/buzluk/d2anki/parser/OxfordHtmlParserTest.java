@@ -1,10 +1,19 @@
 package com.github.buzluk.d2anki.parser;
 
+import com.github.buzluk.d2anki.exception.NotAnEntryException;
 import com.github.buzluk.d2anki.model.Accent;
+import com.github.buzluk.d2anki.model.PageKind;
 import com.github.buzluk.d2anki.model.Pronunciation;
 import com.github.buzluk.d2anki.model.Word;
+import org.jsoup.nodes.Element;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -120,6 +129,100 @@ class OxfordHtmlParserTest {
         assertNotNull(word.pronunciations());
     }
 
+    @Test
+    void shouldParseSameWordWhenStreaming() throws IOException {
+        String html = createHtmlWithExamples("detect", "verb", "to discover something",
+                List.of("The test detected a problem.", "We detected an error."));
+
+        Word streamed = OxfordHtmlParser.parseWord(
+                new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+
+        assertEquals(OxfordHtmlParser.parseWord(html), streamed);
+    }
+
+    @Test
+    void shouldStopReadingOnceEntryIsClosed() throws IOException {
+        String entry = createBasicHtml("detect", "verb").replace("</body>", "");
+        byte[] html = (entry + "<p>related entries</p>".repeat(50_000) + "</body></html>")
+                .getBytes(StandardCharsets.UTF_8);
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(html));
+
+        Word word = OxfordHtmlParser.parseWord(in, StandardCharsets.UTF_8);
+
+        assertEquals("detect", word.name());
+        assertTrue(in.count < html.length / 10, "read " + in.count + " of " + html.length + " bytes");
+        assertTrue(in.closed);
+    }
+
+    @Test
+    void shouldDropElementsOutsideEntryWhileStreaming() throws IOException {
+        String html = createBasicHtml("detect", "verb")
+                .replace("<body>", "<body><nav><a href=\"/\">home</a></nav>");
+
+        Element entry = OxfordHtmlParser.streamMainContent(new StringReader(html));
+
+        assertNotNull(entry);
+        assertNull(entry.ownerDocument().selectFirst("nav"));
+    }
+
+    @Test
+    void shouldRejectSuggestionPageWithoutParsingIt() {
+        String html = """
+                <html><body><div id="didyoumean">Did you mean:</div>
+                <ul class="result-list"><li><a href="/definition/english/detect_1">detect</a></li></ul>
+                </body></html>
+                """;
+
+        NotAnEntryException thrown = assertThrows(NotAnEntryException.class, () -> OxfordHtmlParser.parseWord(html));
+
+        assertEquals(PageKind.SUGGESTION, thrown.getKind());
+        assertEquals(List.of("detect"), thrown.getSuggestions());
+    }
+
+    @Test
+    void shouldRejectErrorPageWhenStreaming() {
+        byte[] html = "<html><body><h1>Page not found</h1></body></html>".getBytes(StandardCharsets.UTF_8);
+
+        NotAnEntryException thrown = assertThrows(NotAnEntryException.class,
+                () -> OxfordHtmlParser.parseWord(new ByteArrayInputStream(html), StandardCharsets.UTF_8));
+
+        assertEquals(PageKind.ERROR, thrown.getKind());
+        assertTrue(thrown.getSuggestions().isEmpty());
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+        private boolean closed;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
     private String createBasicHtml(String headword, String pos) {
         return """
                 <html>
@@ -0,0 +1,82 @@
+package com.github.buzluk.d2anki.parser;
+
+import com.github.buzluk.d2anki.model.PageKind;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PageClassifierTest {
+
+    private static final String ENTRY = """
+            <html><body><div id="main-container"><div id="entryContent"><div class="entry">
+            <h1 class="headword">detect</h1></div></div></div></body></html>
+            """;
+    private static final String SUGGESTION = """
+            <html><body><div id="main-container">
+            <div id="didyoumean">Did you mean:</div>
+            <ul class="result-list"><li><a href="/definition/english/detect_1">detect</a></li>
+            <li><a href="/definition/english/defect_1">defect</a></li></ul>
+            </div></body></html>
+            """;
+    private static final String ERROR = "<html><head><title>Page not found</title></head><body></body></html>";
+
+    @Test
+    void shouldClassifyPages() {
+        assertEquals(PageKind.ENTRY, PageClassifier.classify(ENTRY));
+        assertEquals(PageKind.SUGGESTION, PageClassifier.classify(SUGGESTION));
+        assertEquals(PageKind.ERROR, PageClassifier.classify(ERROR));
+    }
+
+    @Test
+    void shouldClassifyStreamAndRewindIt() throws IOException {
+        byte[] html = ENTRY.getBytes(StandardCharsets.UTF_8);
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(html));
+
+        assertEquals(PageKind.ENTRY, PageClassifier.classify(in));
+        assertArrayEquals(html, in.readAllBytes());
+    }
+
+    @Test
+    void shouldFindMarkerAcrossChunkBoundary() throws IOException {
+        String padding = " ".repeat(8 * 1024 - 5);
+        byte[] html = (padding + SUGGESTION).getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(PageKind.SUGGESTION,
+                PageClassifier.classify(new BufferedInputStream(new ByteArrayInputStream(html))));
+    }
+
+    @Test
+    void shouldTreatMarkerPastPrefixOfStringAsError() {
+        String html = " ".repeat(PageClassifier.PREFIX_LIMIT - 5) + "<div id=\"entryContent\"></div>";
+
+        assertEquals(PageKind.ERROR, PageClassifier.classify(html));
+    }
+
+    @Test
+    void shouldLetEarliestMarkerDecide() {
+        String html = "<div id=\"didyoumean\"></div><div id=\"entryContent\"></div>";
+
+        assertEquals(PageKind.SUGGESTION, PageClassifier.classify(html));
+    }
+
+    @Test
+    void shouldTreatMarkerPastPrefixAsError() throws IOException {
+        byte[] html = (" ".repeat(PageClassifier.PREFIX_LIMIT) + ENTRY).getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(PageKind.ERROR,
+                PageClassifier.classify(new BufferedInputStream(new ByteArrayInputStream(html))));
+    }
+
+    @Test
+    void shouldListSuggestedWords() {
+        assertEquals(List.of("detect", "defect"), PageClassifier.suggestions(SUGGESTION));
+    }
+}
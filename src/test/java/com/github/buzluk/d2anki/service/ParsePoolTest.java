@@ -0,0 +1,68 @@
+package com.github.buzluk.d2anki.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParsePoolTest {
+
+    @Test
+    void shouldRunEveryTaskBeforeClosing() {
+        AtomicInteger done = new AtomicInteger();
+
+        try (ParsePool pool = new ParsePool(2)) {
+            for (int i = 0; i < 50; i++) {
+                pool.submit(done::incrementAndGet);
+            }
+        }
+
+        assertEquals(50, done.get());
+    }
+
+    @Test
+    void shouldHoldBackSubmitterWhilePoolIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch submitted = new CountDownLatch(1);
+
+        try (ParsePool pool = new ParsePool(1)) {
+            pool.submit(() -> await(release));
+            pool.submit(() -> await(release));
+            Thread submitter = Thread.ofPlatform().start(() -> {
+                pool.submit(() -> {
+                });
+                submitted.countDown();
+            });
+
+            assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            assertTrue(submitted.await(5, TimeUnit.SECONDS));
+            submitter.join();
+        }
+    }
+
+    @Test
+    void shouldKeepRunningAfterFailedTask() {
+        AtomicInteger done = new AtomicInteger();
+
+        try (ParsePool pool = new ParsePool(1)) {
+            pool.submit(() -> {
+                throw new IllegalStateException("broken page");
+            });
+            pool.submit(done::incrementAndGet);
+        }
+
+        assertEquals(1, done.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}